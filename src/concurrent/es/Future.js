@@ -91,6 +91,19 @@ class Future extends sys.Obj {
     return this.wrap(Future.makePromise(this.promise().then(onOk, onErr)));
   }
 
+  thenAsync(onOk, onErr) {
+    return this.then(onOk, onErr);
+  }
+
+  onComplete(f) {
+    const cb = () => {
+      try { f(this); }
+      catch (e) { sys.Log.get("concurrent").err("Future.onComplete callback failed", sys.Err.make(e)); }
+    };
+    this.promise().then(cb, cb);
+    return this;
+  }
+
   promise() {
     if (this.#wraps) { return this.#wraps.promise(); }
 
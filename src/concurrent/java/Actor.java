@@ -10,6 +10,9 @@ package fan.concurrent;
 
 import fan.sys.*;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Actor is a worker who processes messages asynchronously.
@@ -46,7 +49,45 @@ public class Actor
     // init
     self.pool = pool;
     self.receive = receive;
-    self.queue = new Queue();
+    self.maxQueue = (int)pool.maxQueue;
+    self.overflow = pool.queueOverflow;
+    self.queue = useLockFree(pool.lockFreeQueue, self.overflow) ? new MpscQueue() : new LinkedQueue();
+    if (pool.collectMetrics)
+    {
+      self.queueWaitHist = new Histogram(false);
+      self.receiveHist = new Histogram(false);
+    }
+  }
+
+  public static Actor makeBounded(ActorPool pool, long maxQueue, QueueOverflow overflow) { return makeBounded(pool, maxQueue, overflow, null); }
+  public static Actor makeBounded(ActorPool pool, long maxQueue, QueueOverflow overflow, Func receive)
+  {
+    Actor self = new Actor();
+    makeBounded$(self, pool, maxQueue, overflow, receive);
+    return self;
+  }
+
+  public static void makeBounded$(Actor self, ActorPool pool, long maxQueue, QueueOverflow overflow) { makeBounded$(self, pool, maxQueue, overflow, null); }
+  public static void makeBounded$(Actor self, ActorPool pool, long maxQueue, QueueOverflow overflow, Func receive)
+  {
+    if (maxQueue < 1) throw ArgErr.make("maxQueue must be >= 1, not " + maxQueue);
+    if (maxQueue > Integer.MAX_VALUE) throw ArgErr.make("maxQueue too big");
+    if (overflow == QueueOverflow.shed && pool != null && pool.onQueueOverflow == null)
+      throw ArgErr.make("QueueOverflow.shed requires ActorPool.onQueueOverflow");
+
+    make$(self, pool, receive);
+    self.maxQueue = (int)maxQueue;
+    self.overflow = overflow;
+    if (!useLockFree(pool.lockFreeQueue, overflow)) self.queue = new LinkedQueue();
+  }
+
+  /**
+   * Dropping the oldest message requires removing from the head of the
+   * queue on the sender's thread, so it can only use the locked queue.
+   */
+  private static boolean useLockFree(boolean lockFree, QueueOverflow overflow)
+  {
+    return lockFree && overflow != QueueOverflow.dropOldest;
   }
 
   public static Actor makeCoalescing(ActorPool pool, Func k, Func c) { return makeCoalescing(pool, k, c, null); }
@@ -70,6 +111,7 @@ public class Actor
   public Actor()
   {
     this.context  = new Context(this);
+    this.startTicks = Duration.nowTicks();
   }
 
 //////////////////////////////////////////////////////////////////////////
@@ -93,6 +135,13 @@ public class Actor
 
   public final Future send(Object msg) { return _send(msg, null, null); }
 
+  public final Future sendPriority(Object msg)
+  {
+    msg = _safe(msg);
+    if (pool.isStopped()) throw Err.make("ActorPool is stopped [" + pool.name + "]");
+    return _enqueue(new ActorFuture(msg), true, true, true, true);
+  }
+
   public final Future sendLater(Duration d, Object msg) { return _send(msg, d, null); }
 
   public final Future sendWhenComplete(Future f, Object msg) { return _send(msg, null, f); }
@@ -113,20 +162,39 @@ public class Actor
   public final String threadState()
   {
     if (curMsg != idleMsg) return "running";
-    if (submitted) return "pending";
+    if (submitted.get()) return "pending";
     return "idle";
   }
 
-  public final boolean isQueueFull() { return queue.size >= (int)pool.maxQueue; }
+  public final boolean isQueueFull() { return pending() >= maxQueue; }
 
-  public final long queueSize() { return queue.size; }
+  public final long queueSize() { return pending(); }
 
-  public final long queuePeak() { return queue.peak; }
+  public final long queuePeak() { return queue.peak(); }
 
   public final long receiveCount() { return receiveCount; }
 
   public final long receiveTicks() { return receiveTicks; }
 
+  public final Map metrics()
+  {
+    long uptime = Duration.nowTicks() - startTicks;
+    Map m = Map.make(Sys.StrType, Sys.ObjType);
+    m.set("state",        threadState());
+    m.set("queueSize",    Long.valueOf(queueSize()));
+    m.set("queuePeak",    Long.valueOf(queuePeak()));
+    m.set("receiveCount", Long.valueOf(receiveCount()));
+    m.set("receiveTicks", Duration.make(receiveTicks));
+    m.set("uptime",       Duration.make(uptime));
+    m.set("msgsPerSec",   Double.valueOf(ActorPool.rate(receiveCount, uptime)));
+    if (receiveHist != null)
+    {
+      m.set("queueWait", queueWaitHist.snapshot());
+      m.set("receive",   receiveHist.snapshot());
+    }
+    return (Map)m.toImmutable();
+  }
+
 //////////////////////////////////////////////////////////////////////////
 // Utils
 //////////////////////////////////////////////////////////////////////////
@@ -174,7 +242,7 @@ public class Actor
     else if (whenDone != null)
       toWhenDoneFuture(whenDone).sendWhenDone(this, f);
     else
-      f = _enqueue(f, true, true);
+      f = _enqueue(f, true, true, true, false);
 
     return f;
   }
@@ -189,46 +257,218 @@ public class Actor
 
   final ActorFuture _enqueueLater(ActorFuture f)
   {
-    return _enqueue(f, false, false);
+    return _enqueue(f, false, false, false, false);
   }
 
   final ActorFuture _enqueueWhenDone(ActorFuture f)
   {
-    return _enqueue(f, false, true);
+    return _enqueue(f, false, true, false, false);
   }
 
-  private final ActorFuture _enqueue(ActorFuture f, boolean coalesce, boolean checkMaxQueue)
+  private final ActorFuture _enqueue(ActorFuture f, boolean coalesce, boolean checkMaxQueue, boolean canBlock, boolean priority)
   {
+    // stamp enqueue time to track queue wait
+    if (receiveHist != null) f.enqueueTicks = Duration.nowTicks();
+
+    // lock-free queues never coalesce and manage their own size
+    if (queue instanceof MpscQueue && !priority)
+      return _enqueueLockFree((MpscQueue)queue, f, checkMaxQueue, canBlock);
+
+    boolean full = false;
+    ActorFuture dropped = null;
     synchronized (lock)
     {
+      // priority lane is always guarded by our lock
+      Queue lane = priority ? priorityQueue() : queue;
+
       // attempt to coalesce
       if (coalesce)
       {
-        ActorFuture c = queue.coalesce(f);
+        ActorFuture c = lane.coalesce(f);
         if (c != null) return c;
       }
 
-      // check queue size
-      if (queue.size+1 > (int)pool.maxQueue && checkMaxQueue)
+      // check queue size across both lanes and apply overflow policy
+      if (checkMaxQueue && pending()+1 > maxQueue)
       {
-        f.completeErr(QueueOverflowErr.make("queueSize: " + queue.size));
-        return f;
+        if (overflow == QueueOverflow.dropOldest)
+          dropped = dropOldest();
+        else if (overflow != QueueOverflow.block || !canBlock || !awaitRoom())
+          full = true;
       }
 
-      // add to queue
-      queue.add(f);
+      if (!full)
+      {
+        // add to queue
+        lane.add(f);
+        if (priority) prioritySize = lane.size();
+
+        // submit to thread pool if not submitted or current running; we
+        // use a CAS because priority messages for a lock-free queue race
+        // with senders which don't hold our lock
+        if (!submitted.get() && submitted.compareAndSet(false, true))
+          pool.submit(this);
+      }
+    }
+
+    // overflow handling is done outside of our lock
+    if (dropped != null) dropped.cancel();
+    if (full) return _overflow(f);
+    return f;
+  }
+
+  private final ActorFuture _enqueueLockFree(MpscQueue queue, ActorFuture f, boolean checkMaxQueue, boolean canBlock)
+  {
+    // reserve a slot and add to queue, optionally blocking for room;
+    // the priority lane is only rarely non-empty so we don't reserve
+    // its messages atomically with our own size
+    int max = checkMaxQueue ? maxQueue - prioritySize : Integer.MAX_VALUE;
+    while (!queue.offer(f, max))
+    {
+      if (overflow != QueueOverflow.block || !canBlock) return _overflow(f);
+      boolean room;
+      synchronized (lock) { room = awaitRoom(); }
+      if (!room) return _overflow(f);
+    }
+
+    // submit to thread pool if we are the first to flip submitted flag
+    if (!submitted.get() && submitted.compareAndSet(false, true))
+      pool.submit(this);
+
+    return f;
+  }
 
-      // submit to thread pool if not submitted or current running
-      if (!submitted)
+  /**
+   * Block the sending thread until there is room in the queue or the
+   * pool's queueOverflowTimeout elapses.  Must be called holding the
+   * lock.  Return false if we timed out, the pool was killed, or the
+   * sender is this actor's own thread which would deadlock.
+   */
+  private boolean awaitRoom()
+  {
+    if (runner == Thread.currentThread()) return false;
+    Duration timeout = pool.queueOverflowTimeout;
+    long deadline = timeout == null ? Long.MAX_VALUE : System.nanoTime() + timeout.ticks;
+    waiters++;
+    try
+    {
+      while (pending()+1 > maxQueue)
       {
-        submitted = true;
-        pool.submit(this);
+        if (pool.killed) return false;
+        long ns = timeout == null ? 0L : deadline - System.nanoTime();
+        if (timeout != null && ns <= 0) return false;
+        lock.wait(timeout == null ? 0L : Math.max(1L, ns/1000000L));
       }
+      return true;
+    }
+    catch (InterruptedException e)
+    {
+      throw InterruptedErr.make(e);
+    }
+    finally
+    {
+      waiters--;
+    }
+  }
 
-      return f;
+  /**
+   * Total number of messages pending in both lanes.
+   */
+  private int pending()
+  {
+    return queue.size() + prioritySize;
+  }
+
+  /**
+   * Get or lazily create the priority lane; must be called holding the
+   * lock.  The priority lane coalesces like our normal queue.
+   */
+  private Queue priorityQueue()
+  {
+    if (priority == null)
+    {
+      if (queue instanceof CoalescingQueue)
+      {
+        CoalescingQueue c = (CoalescingQueue)queue;
+        priority = new CoalescingQueue(c.toKeyFunc, c.coalesceFunc);
+      }
+      else
+      {
+        priority = new LinkedQueue();
+      }
+    }
+    return priority;
+  }
+
+  /**
+   * Remove the oldest normal message or if none then the oldest
+   * priority message; must be called holding the lock.
+   */
+  private ActorFuture dropOldest()
+  {
+    ActorFuture f = queue.get();
+    if (f == null && priority != null)
+    {
+      f = priority.get();
+      prioritySize = priority.size();
+    }
+    return f;
+  }
+
+  /**
+   * Take the next batch of priority messages or return null.
+   */
+  private ActorFuture getPriorityBatch(int max)
+  {
+    if (prioritySize == 0) return null;
+    synchronized (lock)
+    {
+      ActorFuture batch = priority.getBatch(max);
+      prioritySize = priority.size();
+      return batch;
     }
   }
 
+  /**
+   * Called by the consumer after taking messages from the
+   * queue to wake up any senders blocked waiting for room.
+   */
+  private void wakeWaiters()
+  {
+    synchronized (lock) { lock.notifyAll(); }
+  }
+
+  /**
+   * Reject a message which would exceed maxQueue per our overflow policy.
+   */
+  private ActorFuture _overflow(ActorFuture f)
+  {
+    if (overflow == QueueOverflow.dropNewest)
+    {
+      f.cancel();
+    }
+    else if (overflow == QueueOverflow.shed)
+    {
+      try
+      {
+        f.complete(pool.onQueueOverflow.call(this, f.msg));
+      }
+      catch (Err e)
+      {
+        f.completeErr(e);
+      }
+      catch (Throwable e)
+      {
+        f.completeErr(Err.make(e));
+      }
+    }
+    else
+    {
+      f.completeErr(QueueOverflowErr.make("queueSize: " + queue.size()));
+    }
+    return f;
+  }
+
   public final void _work()
   {
     // reset environment for this actor
@@ -237,18 +477,36 @@ public class Actor
 
     // process messages for maxTimeBeforeYield before yielding the thread
     long maxTicks = pool.maxTimeBeforeYield.ticks();
+    int maxBatch = (int)pool.maxBatchSize;
     long startTicks = Duration.nowTicks();
+    this.runner = Thread.currentThread();
     while (true)
     {
-      // get next message, or if none pending we are done
-      ActorFuture future = null;
-      synchronized (lock) { future = queue.get(); }
-      if (future == null) break;
+      // get next batch of messages with priority messages
+      // always first, or if none pending we are done
+      ActorFuture batch = getPriorityBatch(maxBatch);
+      if (batch == null)
+      {
+        if (queue instanceof MpscQueue) batch = queue.getBatch(maxBatch);
+        else synchronized (lock) { batch = queue.getBatch(maxBatch); }
+      }
+      if (batch == null) break;
 
-      // dispatch the messge
-      this.curMsg = future.msg;
-      _dispatch(future);
-      this.curMsg = idleMsg;
+      // if senders are blocked on a full queue, let them know there is room
+      if (waiters > 0) wakeWaiters();
+
+      // dispatch each message in the batch
+      while (batch != null)
+      {
+        ActorFuture future = batch;
+        batch = future.next;
+        future.next = null;
+
+        this.curMsg = future.msg;
+        if (receiveHist == null) _dispatch(future);
+        else _dispatchMetrics(future);
+        this.curMsg = idleMsg;
+      }
 
       // if there are pending actors waiting for a thread,
       // then check if its time to yield our thread
@@ -262,29 +520,53 @@ public class Actor
     // keep track of time between start and now; for efficiency we only
     // update this after a work cycle has ended - but this means its
     // possible to be stuck continously processing the queue if never have
-    // to yield our thread, in which case we won't see this stat updated
-    receiveTicks += Duration.nowTicks() - startTicks;
+    // to yield our thread, in which case we won't see this stat updated;
+    // if collecting metrics then receiveTicks is updated per message
+    this.runner = null;
+    long cycleTicks = Duration.nowTicks() - startTicks;
+    if (receiveHist == null) receiveTicks += cycleTicks;
+    else pool.recordBusy(cycleTicks);
 
     // flush environment back to context
     context.locale = Locale.cur();
 
     // done dispatching, either clear the submitted
     // flag or resubmit to the thread pool
-    synchronized (lock)
+    if (queue instanceof MpscQueue)
+    {
+      // clear flag before we check size so that we race safely with
+      // senders; whoever flips the flag back to true resubmits
+      submitted.set(false);
+      if (pending() > 0 && submitted.compareAndSet(false, true))
+        pool.submit(this);
+    }
+    else synchronized (lock)
     {
-      if (queue.size == 0)
+      if (pending() == 0)
       {
-        submitted = false;
+        submitted.set(false);
       }
       else
       {
-        submitted = true;
+        submitted.set(true);
         pool.submit(this);
       }
     }
 
   }
 
+  private void _dispatchMetrics(ActorFuture future)
+  {
+    long t1 = Duration.nowTicks();
+    long wait = t1 - future.enqueueTicks;
+    _dispatch(future);
+    long ticks = Duration.nowTicks() - t1;
+    receiveTicks += ticks;
+    queueWaitHist.record(wait);
+    receiveHist.record(ticks);
+    pool.recordReceive(wait, ticks);
+  }
+
   final void _dispatch(ActorFuture future)
   {
     try
@@ -306,15 +588,32 @@ public class Actor
 
   public void _kill()
   {
-    // get/reset the pending queue
-    Queue queue = null;
+    // get/reset the pending queue; we are only killed while pending
+    // for a thread, so we are safe to drain a lock-free queue in place
+    Queue queue = this.queue;
+    Queue priority;
     synchronized (lock)
     {
-      queue = this.queue;
-      this.queue = new Queue();
+      priority = this.priority;
+      this.priority = null;
+      this.prioritySize = 0;
+      if (!(queue instanceof MpscQueue))
+      {
+        queue = this.queue;
+        this.queue = new LinkedQueue();
+      }
     }
 
     // cancel all pending messages
+    if (priority != null) cancelAll(priority);
+    cancelAll(queue);
+
+    // wake any blocked senders so they see the pool was killed
+    if (waiters > 0) wakeWaiters();
+  }
+
+  private static void cancelAll(Queue queue)
+  {
     while (true)
     {
       Future future = queue.get();
@@ -332,7 +631,68 @@ public class Actor
 // Queue
 //////////////////////////////////////////////////////////////////////////
 
-  static class Queue
+  static abstract class Queue
+  {
+    public abstract ActorFuture get();
+
+    public abstract void add(ActorFuture f);
+
+    /**
+     * Remove up to max futures from the head of the queue and return
+     * them as a linked list chained by their next field or null if empty.
+     */
+    public ActorFuture getBatch(int max)
+    {
+      return getEach(max);
+    }
+
+    final ActorFuture getEach(int max)
+    {
+      ActorFuture first = get();
+      if (first == null) return null;
+      ActorFuture last = first;
+      for (int i=1; i<max; ++i)
+      {
+        ActorFuture f = get();
+        if (f == null) break;
+        last.next = f;
+        last = f;
+      }
+      return first;
+    }
+
+    public ActorFuture coalesce(ActorFuture f)
+    {
+      return null;
+    }
+
+    public abstract int size();
+
+    public abstract int peak();
+
+    abstract void dump(fan.sys.OutStream out);
+
+    static void dump(fan.sys.OutStream out, ActorFuture head)
+    {
+      int num = 0;
+      int max = 50;
+      for (ActorFuture x = head; x != null; x = x.next)
+      {
+        if (num < max) out.print("  ").printLine(x.msg);
+        num++;
+      }
+      if (num > max) out.print("  " + (num-max) + " more messages...");
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// LinkedQueue
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * LinkedQueue is the default queue which must be guarded by the actor's lock.
+   */
+  static class LinkedQueue extends Queue
   {
     public ActorFuture get()
     {
@@ -345,6 +705,20 @@ public class Actor
       return f;
     }
 
+    public ActorFuture getBatch(int max)
+    {
+      // detach the first max nodes of our linked list in one pass
+      if (head == null) return null;
+      ActorFuture first = head, last = head;
+      int n = 1;
+      while (n < max && last.next != null) { last = last.next; n++; }
+      head = last.next;
+      if (head == null) tail = null;
+      last.next = null;
+      size -= n;
+      return first;
+    }
+
     public void add(ActorFuture f)
     {
       if (tail == null) { head = tail = f; f.next = null; }
@@ -353,33 +727,134 @@ public class Actor
       if (size > peak) peak = size;
     }
 
-    public ActorFuture coalesce(ActorFuture f)
+    public int size() { return size; }
+
+    public int peak() { return peak; }
+
+    void dump(fan.sys.OutStream out) { dump(out, head); }
+
+    ActorFuture head, tail;
+    int size;
+    int peak;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// MpscQueue
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * MpscQueue is a lock-free multi-producer, single-consumer queue
+   * which is safe to use without holding the actor's lock.  It is an
+   * intrusive variant of Dmitry Vyukov's MPSC node queue which links
+   * futures via their next field and uses a stub node so that producers
+   * only ever contend on a single atomic swap of the tail.  The get
+   * method must only be called by the thread currently running the actor.
+   */
+  static final class MpscQueue extends Queue
+  {
+    MpscQueue()
     {
-      return null;
+      this.head = stub;
+      this.tail = new AtomicReference(stub);
     }
 
-    void dump(fan.sys.OutStream out)
+    /**
+     * Reserve a slot and add to the queue if the size does not
+     * exceed the given max.  Return false if the queue is full.
+     */
+    public boolean offer(ActorFuture f, int max)
     {
-      int num = 0;
-      int max = 50;
-      for (ActorFuture x = head; x != null; x = x.next)
+      while (true)
       {
-        if (num < max) out.print("  ").printLine(x.msg);
-        num++;
+        int s = size.get();
+        if (s+1 > max) return false;
+        if (size.compareAndSet(s, s+1))
+        {
+          if (s+1 > peak) peak = s+1;
+          break;
+        }
       }
-      if (num > max) out.print("  " + (num-max) + " more messages...");
+      push(f);
+      return true;
     }
 
-    ActorFuture head, tail;
-    int size;
-    int peak;
+    public void add(ActorFuture f)
+    {
+      offer(f, Integer.MAX_VALUE);
+    }
+
+    private void push(ActorFuture f)
+    {
+      f.next = null;
+      ActorFuture prev = (ActorFuture)tail.getAndSet(f);
+      prev.next = f;
+    }
+
+    public ActorFuture get()
+    {
+      ActorFuture h = head;
+      ActorFuture next = h.next;
+
+      // skip over the stub node
+      if (h == stub)
+      {
+        if (next == null) return null;
+        head = h = next;
+        next = next.next;
+      }
+
+      // common case, we have a node after the head
+      if (next != null)
+      {
+        head = next;
+        return taken(h);
+      }
+
+      // if the head isn't the tail then a producer is
+      // between its swap and link; treat as empty for now
+      if (h != tail.get()) return null;
+
+      // head is the last node, so push the stub back on to the
+      // queue so that we can safely unlink the head
+      push(stub);
+      next = h.next;
+      if (next != null)
+      {
+        head = next;
+        return taken(h);
+      }
+      return null;
+    }
+
+    private ActorFuture taken(ActorFuture f)
+    {
+      f.next = null;
+      size.decrementAndGet();
+      return f;
+    }
+
+    public int size() { return size.get(); }
+
+    public int peak() { return peak; }
+
+    void dump(fan.sys.OutStream out)
+    {
+      ActorFuture h = head;
+      dump(out, h == stub ? h.next : h);
+    }
+
+    private final ActorFuture stub = new ActorFuture(null);
+    private final AtomicReference tail;          // producers swap in new tail
+    private final AtomicInteger size = new AtomicInteger();
+    private ActorFuture head;                    // only accessed by consumer
+    private volatile int peak;                   // best effort peak size
   }
 
 //////////////////////////////////////////////////////////////////////////
 // CoalescingQueue
 //////////////////////////////////////////////////////////////////////////
 
-  static class CoalescingQueue extends Queue
+  static class CoalescingQueue extends LinkedQueue
   {
     CoalescingQueue(Func toKeyFunc, Func coalesceFunc)
     {
@@ -405,6 +880,12 @@ public class Actor
       return f;
     }
 
+    public ActorFuture getBatch(int max)
+    {
+      // must remove each future from our pending index
+      return getEach(max);
+    }
+
     public void add(ActorFuture f)
     {
       try
@@ -473,6 +954,12 @@ public class Actor
       out.printLine("  ticks:     " + ticksTotal.toLocale() + " (avg " + ticksAvg.toLocale() + ")");
       if (curMsg != idleMsg)
         out.printLine("  curMsg:    " + curMsg);
+      Queue priority = this.priority;
+      if (priority != null && prioritySize > 0)
+      {
+        out.printLine("  priority:  " + prioritySize);
+        priority.dump(out);
+      }
       queue.dump(out);
     }
     catch (Exception e) { out.printLine("  " + e + "\n"); }
@@ -502,9 +989,18 @@ public class Actor
   private Func receive;                  // func to invoke on receive or null
   private Object lock = new Object();    // lock for message queue
   private Queue queue;                   // message queue linked list
+  private Queue priority;                // priority lane created on demand
+  private volatile int prioritySize;     // size of priority lane
+  private int maxQueue;                  // max messages before overflow
+  private QueueOverflow overflow;        // policy when maxQueue exceeded
+  private volatile int waiters;          // senders blocked waiting for room
+  private volatile Thread runner;        // thread currently running our work
   private Object curMsg = idleMsg;       // if currently processing a message
-  private boolean submitted = false;     // is actor submitted to thread pool
+  private final AtomicBoolean submitted = new AtomicBoolean(); // is actor submitted to thread pool
   private int receiveCount;              // total number of messages received
   private long receiveTicks;             // total ticks spend in receive
+  private final long startTicks;         // ticks when actor was created
+  private Histogram queueWaitHist;       // enqueue to dispatch if collecting metrics
+  private Histogram receiveHist;         // receive time if collecting metrics
 }
 
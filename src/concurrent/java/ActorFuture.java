@@ -178,28 +178,44 @@ public final class ActorFuture
   public final Future then(Func onOk, Func onErr)
   {
     waitFor(null);
-    Object chain = null;
+    ActorFuture chain = new ActorFuture(null);
+    callThen(chain, onOk, onErr);
+    return chain;
+  }
+
+  public final Future thenAsync(Func onOk, Func onErr)
+  {
+    return thenAsyncChain(onOk, onErr);
+  }
+
+  /**
+   * Invoke the then callbacks for our completed state and
+   * complete the chained future with the callback's result.
+   */
+  final void callThen(ActorFuture chain, Func onOk, Func onErr)
+  {
+    Object r = null;
     try
     {
       switch (state)
       {
         case DONE_OK:
-          chain = onOk.call(result);
+          r = onOk.call(result);
           break;
         case DONE_ERR:
-          if (onErr != null) chain = onErr.call(result);
+          if (onErr != null) r = onErr.call(result);
           break;
         case DONE_CANCEL:
-          if (onErr != null) chain = onErr.call(CancelledErr.make("Future cancelled"));
+          if (onErr != null) r = onErr.call(CancelledErr.make("Future cancelled"));
           break;
         default:
           throw NotCompleteErr.make("Future is pending");
       }
-      return Future.makeCompletable().complete(chain);
+      chain.complete(r);
     }
     catch (Throwable e)
     {
-      return Future.makeCompletable().completeErr(Err.make(e));
+      chain.completeErr(Err.make(e));
     }
   }
 
@@ -213,7 +229,11 @@ public final class ActorFuture
       notifyAll();
       wd = whenDone; whenDone = null;
     }
-    sendWhenDone(wd);
+    fireWhenDone(wd);
+
+    // if scheduled via sendLater, then free up our scheduler slot now
+    Scheduler.Node t = timer;
+    if (t != null) { timer = null; t.cancel(); }
   }
 
   public final Future complete(Object r)
@@ -229,7 +249,7 @@ public final class ActorFuture
       notifyAll();
       wd = whenDone; whenDone = null;
     }
-    sendWhenDone(wd);
+    fireWhenDone(wd);
     return this;
   }
 
@@ -245,7 +265,7 @@ public final class ActorFuture
       notifyAll();
       wd = whenDone; whenDone = null;
     }
-    sendWhenDone(wd);
+    fireWhenDone(wd);
     return this;
   }
 
@@ -259,6 +279,11 @@ public final class ActorFuture
 //////////////////////////////////////////////////////////////////////////
 
   final void sendWhenDone(Actor a, ActorFuture f)
+  {
+    addWhenDone(new WhenDone(a, f));
+  }
+
+  final void addWhenDone(WhenDone wd)
   {
     // if already done, then set immediate flag
     // otherwise add to our when done list
@@ -269,32 +294,45 @@ public final class ActorFuture
       else
       {
         if (whenDone == null) whenDone = new ArrayList();
-        whenDone.add(new WhenDone(a, f));
+        whenDone.add(wd);
       }
     }
 
-    // if immediate we are already done so enqueue immediately
-    if (immediate)
+    // if immediate we are already done so fire immediately
+    if (immediate) fireWhenDone(wd);
+  }
+
+  final void removeWhenDone(WhenDone wd)
+  {
+    synchronized (this)
     {
-      try { a._enqueueWhenDone(f); }
-      catch (Throwable e) { e.printStackTrace(); }
+      if (whenDone != null) whenDone.remove(wd);
     }
   }
 
-  static void sendWhenDone(ArrayList list)
+  final void fireWhenDone(ArrayList list)
   {
     if (list == null) return;
     for (int i=0; i<list.size(); ++i)
-    {
-      WhenDone wd = (WhenDone)list.get(i);
-      try { wd.actor._enqueueWhenDone(wd.future); }
-      catch (Throwable e) { e.printStackTrace(); }
-    }
+      fireWhenDone((WhenDone)list.get(i));
+  }
+
+  final void fireWhenDone(WhenDone wd)
+  {
+    try { wd.fire(this); }
+    catch (Throwable e) { e.printStackTrace(); }
   }
 
+  /**
+   * WhenDone is a callback fired by the thread which transitions a future
+   * to a done state.  By default it enqueues a sendWhenComplete message
+   * on an actor; subclasses are used for completion callbacks.
+   */
   static class WhenDone
   {
+    WhenDone() {}
     WhenDone(Actor a, ActorFuture f) { actor = a; future = f; }
+    void fire(ActorFuture done) { actor._enqueueWhenDone(future); }
     Actor actor;
     ActorFuture future;
   }
@@ -309,11 +347,13 @@ public final class ActorFuture
   static final int DONE_OK     = 0x2f;
   static final int DONE_ERR    = 0x4f;
 
-  Object msg;                  // message send to Actor
-  ActorFuture next;            // linked list in Actor
-  private volatile int state;  // processing state of message
-  private Object result;       // result or exception of processing
-  private ArrayList whenDone;  // list of messages to deliver when done
+  Object msg;                    // message send to Actor
+  volatile ActorFuture next;     // linked list in Actor
+  volatile Scheduler.Node timer; // scheduler node if sendLater
+  long enqueueTicks;             // when enqueued if collecting metrics
+  private volatile int state;    // processing state of message
+  private Object result;         // result or exception of processing
+  private ArrayList whenDone;    // list of messages to deliver when done
 
 }
 
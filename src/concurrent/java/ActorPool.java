@@ -8,6 +8,7 @@
 package fan.concurrent;
 
 import fan.sys.*;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Controller for a group of actors which manages their execution
@@ -41,9 +42,29 @@ public class ActorPool
     if (self.maxThreads < 1) throw ArgErr.make("ActorPool.maxThreads must be >= 1, not " + self.maxThreads);
     if (self.maxQueue < 1) throw ArgErr.make("ActorPool.maxQueue mst be >= 1, not " + self.maxQueue);
     if (self.maxQueue > Integer.MAX_VALUE) throw ArgErr.make("ActorPool.maxQueue too big");
+    if (self.maxBatchSize < 1) throw ArgErr.make("ActorPool.maxBatchSize must be >= 1, not " + self.maxBatchSize);
+    if (self.maxBatchSize > Integer.MAX_VALUE) throw ArgErr.make("ActorPool.maxBatchSize too big");
 
-    self.threadPool = new ThreadPool(self.name, (int)self.maxThreads);
+    if (self.queueOverflow == QueueOverflow.shed && self.onQueueOverflow == null) throw ArgErr.make("ActorPool.queueOverflow shed requires onQueueOverflow");
+    if (self.onQueueOverflow != null) self.onQueueOverflow = (Func)self.onQueueOverflow.toImmutable();
+
+    if (self.workStealing && self.virtualThreads) throw ArgErr.make("ActorPool cannot use both workStealing and virtualThreads");
+
+    if (self.virtualThreads)
+      self.threadPool = new VirtualThreadPool(self.name, (int)self.maxThreads);
+    else if (self.workStealing)
+      self.threadPool = new WorkStealingPool(self.name, (int)self.maxThreads);
+    else
+      self.threadPool = new ThreadPool(self.name, (int)self.maxThreads);
     self.scheduler = new Scheduler(self.name);
+    self.startTicks = Duration.nowTicks();
+    if (self.collectMetrics)
+    {
+      self.queueWaitHist = new Histogram(true);
+      self.receiveHist   = new Histogram(true);
+      self.receiveCount  = new LongAdder();
+      self.busyTicks     = new LongAdder();
+    }
   }
 
 //////////////////////////////////////////////////////////////////////////
@@ -88,6 +109,11 @@ public class ActorPool
     return this;
   }
 
+  public static boolean isVirtualThreadsSupported()
+  {
+    return VirtualThreadPool.isSupported();
+  }
+
   public final ActorPool join() { return join(null); }
   public final ActorPool join(Duration timeout)
   {
@@ -130,6 +156,45 @@ public class ActorPool
     return best;
   }
 
+  public final Map metrics()
+  {
+    long uptime = Duration.nowTicks() - startTicks;
+    Map m = Map.make(Sys.StrType, Sys.ObjType);
+    m.set("name",       name);
+    m.set("maxThreads", Long.valueOf(maxThreads));
+    m.set("uptime",     Duration.make(uptime));
+    m.set("scheduled",  Long.valueOf(scheduler.size()));
+    if (collectMetrics)
+    {
+      long count = receiveCount.sum();
+      long busy = busyTicks.sum();
+      m.set("receiveCount", Long.valueOf(count));
+      m.set("busyTicks",    Duration.make(busy));
+      m.set("msgsPerSec",   Double.valueOf(rate(count, uptime)));
+      m.set("utilization",  Double.valueOf(uptime <= 0 ? 0d : (double)busy / ((double)uptime * maxThreads)));
+      m.set("queueWait",    queueWaitHist.snapshot());
+      m.set("receive",      receiveHist.snapshot());
+    }
+    return (Map)m.toImmutable();
+  }
+
+  static double rate(long count, long ticks)
+  {
+    return ticks <= 0 ? 0d : count * 1e9 / ticks;
+  }
+
+  final void recordReceive(long queueWait, long receive)
+  {
+    receiveCount.increment();
+    queueWaitHist.record(queueWait);
+    receiveHist.record(receive);
+  }
+
+  final void recordBusy(long ticks)
+  {
+    busyTicks.add(ticks);
+  }
+
   final boolean hasPending()
   {
     return threadPool.hasPending();
@@ -142,7 +207,7 @@ public class ActorPool
 
   final void schedule(Actor a, Duration d, ActorFuture f)
   {
-    scheduler.schedule(d.ticks(), new ScheduledWork(a, f));
+    f.timer = scheduler.schedule(d.ticks(), new ScheduledWork(a, f));
   }
 
 //////////////////////////////////////////////////////////////////////////
@@ -160,6 +225,9 @@ public class ActorPool
       out.printLine("  name:       " + name);
       out.printLine("  maxThreads: " + maxThreads);
       out.printLine("  maxTime:    " + maxTimeBeforeYield);
+      out.printLine("  maxBatch:   " + maxBatchSize);
+      out.printLine("  scheduled:  " + scheduler.size());
+      out.printLine("  lockFree:   " + lockFreeQueue);
       threadPool.dump(out);
     }
     catch (Exception e) { out.printLine("  " + e + "\n"); }
@@ -196,13 +264,50 @@ public class ActorPool
   public void maxQueue$init(Func f, long x) { maxQueue = x; }
   public long maxQueue = 100_000_000;
 
+  public QueueOverflow queueOverflow() { return queueOverflow; }
+  public void queueOverflow$init(Func f, QueueOverflow x) { queueOverflow = x; }
+  public QueueOverflow queueOverflow = QueueOverflow.err;
+
+  public Duration queueOverflowTimeout() { return queueOverflowTimeout; }
+  public void queueOverflowTimeout$init(Func f, Duration x) { queueOverflowTimeout = x; }
+  public Duration queueOverflowTimeout = null;
+
+  public Func onQueueOverflow() { return onQueueOverflow; }
+  public void onQueueOverflow$init(Func f, Func x) { onQueueOverflow = x; }
+  public Func onQueueOverflow = null;
+
   public Duration maxTimeBeforeYield() { return maxTimeBeforeYield; }
   public void maxTimeBeforeYield$init(Func f, Duration x) { maxTimeBeforeYield = x; }
   public Duration maxTimeBeforeYield = Duration.oneSec;
 
-  private ThreadPool threadPool;
+  public long maxBatchSize() { return maxBatchSize; }
+  public void maxBatchSize$init(Func f, long x) { maxBatchSize = x; }
+  public long maxBatchSize = 1;
+
+  public boolean workStealing() { return workStealing; }
+  public void workStealing$init(Func f, boolean x) { workStealing = x; }
+  public boolean workStealing = false;
+
+  public boolean virtualThreads() { return virtualThreads; }
+  public void virtualThreads$init(Func f, boolean x) { virtualThreads = x; }
+  public boolean virtualThreads = false;
+
+  public boolean collectMetrics() { return collectMetrics; }
+  public void collectMetrics$init(Func f, boolean x) { collectMetrics = x; }
+  public boolean collectMetrics = false;
+
+  public boolean lockFreeQueue() { return lockFreeQueue; }
+  public void lockFreeQueue$init(Func f, boolean x) { lockFreeQueue = x; }
+  public boolean lockFreeQueue = false;
+
+  private WorkPool threadPool;
   private Scheduler scheduler;
   volatile boolean killed;
+  private long startTicks;
+  private Histogram queueWaitHist;
+  private Histogram receiveHist;
+  private LongAdder receiveCount;
+  private LongAdder busyTicks;
 
 }
 
@@ -9,7 +9,13 @@
 package fan.concurrent;
 
 import fan.sys.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import java.util.ArrayList;
 
 /**
@@ -86,27 +92,198 @@ public abstract class Future
     return wrap(wrapped().then(onOk, onErr));
   }
 
-  public static final void waitForAll(List<Future> list) { waitForAll(list, null); }
-  public static final void waitForAll(List<Future> list, Duration timeout)
+  public final Future thenAsync(Func onOk) { return thenAsync(onOk, null); }
+  public Future thenAsync(Func onOk, Func onErr)
   {
-    if (timeout == null)
+    return wrap(thenAsyncChain(onOk, onErr));
+  }
+
+  final ActorFuture thenAsyncChain(Func onOk, Func onErr)
+  {
+    final Func ok = (Func)onOk.toImmutable();
+    final Func err = onErr == null ? null : (Func)onErr.toImmutable();
+    final ActorFuture chain = new ActorFuture(null);
+    addWhenDone(new ActorFuture.WhenDone()
+    {
+      void fire(ActorFuture done) { done.callThen(chain, ok, err); }
+    });
+    return chain;
+  }
+
+  public final Future onComplete(Func f)
+  {
+    final Func func = (Func)f.toImmutable();
+    final Future self = this;
+    addWhenDone(new ActorFuture.WhenDone()
+    {
+      void fire(ActorFuture done)
+      {
+        try { func.call(self); }
+        catch (Throwable e) { Log.get("concurrent").err("Future.onComplete callback failed", e); }
+      }
+    });
+    return this;
+  }
+
+  void addWhenDone(ActorFuture.WhenDone wd)
+  {
+    wrapped().addWhenDone(wd);
+  }
+
+  public static final void waitForAll(List<Future> list) { waitForAll(list, null, false); }
+  public static final void waitForAll(List<Future> list, Duration timeout) { waitForAll(list, timeout, false); }
+  public static final void waitForAll(List<Future> list, Duration timeout, boolean cancel)
+  {
+    try
+    {
+      await(list, list.sz(), timeout, "waitForAll");
+    }
+    finally
+    {
+      if (cancel) cancelPending(list);
+    }
+  }
+
+  public static final Future waitForAny(List<Future> list) { return waitForAny(list, null, false); }
+  public static final Future waitForAny(List<Future> list, Duration timeout) { return waitForAny(list, timeout, false); }
+  public static final Future waitForAny(List<Future> list, Duration timeout, boolean cancel)
+  {
+    if (list.sz() == 0) throw ArgErr.make("Future list is empty");
+    try
     {
+      await(list, 1, timeout, "waitForAny");
       for (int i=0; i<list.sz(); ++i)
       {
         Future f = (Future)list.get(i);
-        f.waitFor(null);
+        if (f.isDone()) return f;
       }
+      throw Err.make("Internal error");
+    }
+    finally
+    {
+      if (cancel) cancelPending(list);
+    }
+  }
+
+  /**
+   * Register one latch on every future and park the calling
+   * thread until the given number of futures have completed.
+   */
+  private static void await(List<Future> list, int need, Duration timeout, String method)
+  {
+    if (need <= 0) return;
+
+    // futures not backed by an ActorFuture can't take a latch
+    ActorFuture[] backing = new ActorFuture[list.sz()];
+    for (int i=0; i<backing.length; ++i)
+    {
+      backing[i] = backing((Future)list.get(i));
+      if (backing[i] == null) { awaitEach(list, need, timeout, method); return; }
     }
-    else
+
+    Latch latch = new Latch(need);
+    try
+    {
+      for (int i=0; i<backing.length; ++i)
+        backing[i].addWhenDone(latch);
+      if (!latch.await(timeout == null ? -1L : timeout.ticks()))
+        throw TimeoutErr.make("Future." + method + " timed out");
+    }
+    catch (InterruptedException e)
+    {
+      throw InterruptedErr.make(e);
+    }
+    finally
+    {
+      // remove the latch from the futures still pending so that
+      // long lived futures don't accumulate a latch per call
+      for (int i=0; i<backing.length; ++i)
+        backing[i].removeWhenDone(latch);
+    }
+  }
+
+  /**
+   * Get the ActorFuture which backs a future or null.
+   */
+  private static ActorFuture backing(Future f)
+  {
+    while (f != null && !(f instanceof ActorFuture)) f = f.wraps;
+    return (ActorFuture)f;
+  }
+
+  /**
+   * Wait on futures which aren't backed by an ActorFuture thru
+   * their own waitFor, or by polling when waiting for any.
+   */
+  private static void awaitEach(List<Future> list, int need, Duration timeout, String method)
+  {
+    long deadline = timeout == null ? Long.MAX_VALUE : System.nanoTime() + timeout.ticks();
+    if (need >= list.sz())
     {
-      long deadline = Duration.nowMillis() + timeout.millis();
       for (int i=0; i<list.sz(); ++i)
       {
         Future f = (Future)list.get(i);
-        long left = deadline - Duration.nowMillis();
-        f.waitFor(Duration.makeMillis(left));
+        f.waitFor(timeout == null ? null : Duration.make(Math.max(0L, deadline - System.nanoTime())));
+      }
+      return;
+    }
+
+    long sleep = 1000000L;
+    while (true)
+    {
+      int done = 0;
+      for (int i=0; i<list.sz(); ++i)
+        if (((Future)list.get(i)).isDone()) ++done;
+      if (done >= need) return;
+
+      long left = deadline - System.nanoTime();
+      if (left <= 0L) throw TimeoutErr.make("Future." + method + " timed out");
+      java.util.concurrent.locks.LockSupport.parkNanos(Math.min(sleep, left));
+      if (Thread.interrupted()) throw InterruptedErr.make("Future." + method + " interrupted");
+      sleep = Math.min(sleep*2, 50000000L);
+    }
+  }
+
+  private static void cancelPending(List<Future> list)
+  {
+    for (int i=0; i<list.sz(); ++i)
+    {
+      Future f = (Future)list.get(i);
+      if (!f.isDone()) f.cancel();
+    }
+  }
+
+  /**
+   * Latch is registered on many futures and counts down as they complete.
+   */
+  static final class Latch extends ActorFuture.WhenDone
+  {
+    Latch(int need) { this.need = need; }
+
+    synchronized void fire(ActorFuture done)
+    {
+      if (--need <= 0) notifyAll();
+    }
+
+    synchronized boolean await(long ns)
+      throws InterruptedException
+    {
+      if (ns < 0)
+      {
+        while (need > 0) wait();
+        return true;
       }
+      long deadline = System.nanoTime() + ns;
+      while (need > 0)
+      {
+        long left = deadline - System.nanoTime();
+        if (left <= 0L) return false;
+        wait(left / 1000000L, (int)(left % 1000000L));
+      }
+      return true;
     }
+
+    private int need;
   }
 
   // java Future version
@@ -140,6 +317,62 @@ public abstract class Future
 
   public abstract Future wrap(Future wrap);
 
+//////////////////////////////////////////////////////////////////////////
+// Java CompletableFuture
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Return a CompletableFuture which is completed when this future
+   * completes.  Errors complete it exceptionally with the Fantom Err and
+   * cancellation cancels it.  Completing the returned future has no
+   * effect on this future.
+   */
+  public CompletableFuture toCompletableFuture()
+  {
+    final CompletableFuture cf = new CompletableFuture();
+    addWhenDone(new ActorFuture.WhenDone()
+    {
+      void fire(ActorFuture done)
+      {
+        FutureStatus status = done.status();
+        if (status == FutureStatus.ok) cf.complete(done.get(null));
+        else if (status == FutureStatus.err) cf.completeExceptionally(done.err());
+        else cf.cancel(false);
+      }
+    });
+    return cf;
+  }
+
+  /**
+   * Return a completable Future which is completed when the given
+   * Java CompletionStage completes.  The stage's result must be
+   * immutable otherwise the future completes with NotImmutableErr.
+   */
+  public static Future fromCompletionStage(CompletionStage stage)
+  {
+    final Future f = makeCompletable();
+    stage.whenComplete(new BiConsumer()
+    {
+      public void accept(Object r, Object x)
+      {
+        Throwable e = (Throwable)x;
+        if (e instanceof CompletionException || e instanceof ExecutionException)
+          if (e.getCause() != null) e = e.getCause();
+        try
+        {
+          if (e == null) f.complete(r);
+          else if (e instanceof CancellationException) f.cancel();
+          else f.completeErr(Err.make(e));
+        }
+        catch (Throwable err)
+        {
+          f.completeErr(Err.make(err));
+        }
+      }
+    });
+    return f;
+  }
+
   public Future wraps() { return wraps; }
 
   Future wrapped()
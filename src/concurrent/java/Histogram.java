@@ -0,0 +1,155 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+package fan.concurrent;
+
+import fan.sys.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram records nanosecond durations into log-linear buckets in the
+ * style of HdrHistogram: values below 8ns each get their own bucket and
+ * every power of two range above that is split into 8 linear sub-buckets,
+ * so values are accurate to within 12.5%.  Values of 2^45ns (~9.8 hours)
+ * and above are clamped into the last bucket.  Recording never allocates
+ * and snapshots are taken without blocking writers.
+ *
+ * An actor's histogram has one writer at a time, so it records with
+ * plain reads and ordered writes.  A pool's histogram is shared by all
+ * its threads, so it is striped by thread like LongAdder: each stripe
+ * holds its own counts, sum, and max, and a snapshot merges them.
+ */
+final class Histogram
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Constructor
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Make a histogram recorded by one thread at a time, or if
+   * shared a histogram striped for concurrent writers.
+   */
+  Histogram(boolean shared)
+  {
+    this.shared = shared;
+    this.stripes = new AtomicLongArray[shared ? STRIPES : 1];
+    for (int i=0; i<stripes.length; ++i) stripes[i] = new AtomicLongArray(LEN);
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Buckets
+//////////////////////////////////////////////////////////////////////////
+
+  static final int SUB_BITS  = 3;
+  static final int SUB       = 1 << SUB_BITS;
+  static final int MAX_SHIFT = 41;
+  static final int NUM       = SUB + (MAX_SHIFT+1) * SUB;
+  static final int SUM       = NUM;      // stripe slot for sum
+  static final int MAX       = NUM + 1;  // stripe slot for max
+  static final int LEN       = NUM + 2;
+  static final int STRIPES   = Math.min(32, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+  static int index(long v)
+  {
+    if (v < SUB) return v < 0 ? 0 : (int)v;
+    int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+    if (shift > MAX_SHIFT) return NUM - 1;
+    int sub = (int)(v >>> shift) & (SUB-1);
+    return SUB + shift * SUB + sub;
+  }
+
+  static long lowerBound(int index)
+  {
+    if (index < SUB) return index;
+    int shift = (index - SUB) / SUB;
+    int sub = (index - SUB) % SUB;
+    return ((long)(SUB + sub)) << shift;
+  }
+
+  static long upperBound(int index)
+  {
+    if (index < SUB) return index;
+    int shift = (index - SUB) / SUB;
+    return lowerBound(index) + (1L << shift) - 1;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Recording
+//////////////////////////////////////////////////////////////////////////
+
+  void record(long ns)
+  {
+    if (ns < 0) ns = 0;
+    int i = index(ns);
+    if (shared)
+    {
+      AtomicLongArray s = stripes[(int)Thread.currentThread().getId() & (STRIPES-1)];
+      s.getAndIncrement(i);
+      s.getAndAdd(SUM, ns);
+      long m = s.get(MAX);
+      while (ns > m && !s.compareAndSet(MAX, m, ns)) m = s.get(MAX);
+    }
+    else
+    {
+      // single writer so no read-modify-write needed
+      AtomicLongArray s = stripes[0];
+      s.lazySet(i, s.get(i) + 1);
+      s.lazySet(SUM, s.get(SUM) + ns);
+      if (ns > s.get(MAX)) s.lazySet(MAX, ns);
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Snapshot
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Return immutable Str:Obj map with count, mean, max, and
+   * the p50, p90, p99, and p999 percentiles as Durations.
+   */
+  Map snapshot()
+  {
+    long[] snap = new long[NUM];
+    long total = 0, sum = 0, max = 0;
+    for (int j=0; j<stripes.length; ++j)
+    {
+      AtomicLongArray s = stripes[j];
+      for (int i=0; i<NUM; ++i) snap[i] += s.get(i);
+      sum += s.get(SUM);
+      max = Math.max(max, s.get(MAX));
+    }
+    for (int i=0; i<NUM; ++i) total += snap[i];
+
+    Map m = Map.make(Sys.StrType, Sys.ObjType);
+    m.set("count", Long.valueOf(total));
+    m.set("mean",  Duration.make(total == 0 ? 0 : sum / total));
+    m.set("max",   Duration.make(max));
+    m.set("p50",   Duration.make(percentile(snap, total, max, 0.5)));
+    m.set("p90",   Duration.make(percentile(snap, total, max, 0.9)));
+    m.set("p99",   Duration.make(percentile(snap, total, max, 0.99)));
+    m.set("p999",  Duration.make(percentile(snap, total, max, 0.999)));
+    return (Map)m.toImmutable();
+  }
+
+  static long percentile(long[] snap, long total, long max, double q)
+  {
+    if (total == 0) return 0;
+    long rank = (long)Math.ceil(q * total);
+    long acc = 0;
+    for (int i=0; i<snap.length; ++i)
+    {
+      acc += snap[i];
+      if (acc >= rank) return Math.min(upperBound(i), max);
+    }
+    return max;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private final boolean shared;              // striped for concurrent writers
+  private final AtomicLongArray[] stripes;   // counts, sum, and max per stripe
+}
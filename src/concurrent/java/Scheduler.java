@@ -11,7 +11,8 @@ package fan.concurrent;
  * Scheduler is used to schedule work to be run after an elapsed
  * period of time.  It is optimized for use with the actor framework.
  * Scheduler lazily launches a background thread the first time an
- * item of work is scheduled.
+ * item of work is scheduled.  Pending work is kept in a binary min-heap
+ * so that scheduling and cancelling are both O(log n).
  */
 public class Scheduler implements Runnable
 {
@@ -34,13 +35,15 @@ public class Scheduler implements Runnable
 //////////////////////////////////////////////////////////////////////////
 
   /**
-   * Schedule the work item to be executed after
-   * the given duration of nanoseconds has elapsed.
+   * Schedule the work item to be executed after the given duration
+   * of nanoseconds has elapsed.  Return the node which may be used
+   * to cancel the work item before its deadline.
    */
-  public synchronized void schedule(long ns, Work work)
+  public synchronized Node schedule(long ns, Work work)
   {
-    // insert into our linked list
-    boolean newHead = add(ns, work);
+    // insert into our heap
+    Node node = new Node(System.nanoTime() + ns, seq++, work);
+    boolean newHead = add(node);
 
     // if we haven't launched our thread yet, then launch it
     if (thread == null)
@@ -49,57 +52,95 @@ public class Scheduler implements Runnable
       thread.start();
     }
 
-    // if we added to the head of our linked list, then we
-    // modified our earliest deadline, so we need to notify thread
+    // if we added to the head of our heap, then we modified
+    // our earliest deadline, so we need to notify thread
     if (newHead) notifyAll();
+    return node;
   }
 
   /**
-   * Add the work item into the linked list so that the list
-   * is always sorted by earliest deadline to oldest deadline.
+   * Add the node into our binary min-heap keyed by deadline.
    * Return true if we have a new head which changes our
    * next earliest deadline.
    */
-  private boolean add(long ns, Work work)
+  private boolean add(Node node)
   {
-    // create new node for our linked list
-    Node node = new Node();
-    node.deadline = System.nanoTime() + ns;
-    node.work = work;
-
-    // if no items, this is easy
-    if (head == null)
+    if (size == heap.length)
     {
-      head = node;
-      return true;
+      Node[] temp = new Node[size*2];
+      System.arraycopy(heap, 0, temp, 0, size);
+      heap = temp;
     }
+    int i = size++;
+    heap[i] = node;
+    node.index = i;
+    return siftUp(i) == 0;
+  }
 
-    // if new item has earliest deadline it becomes new head
-    if (node.deadline < head.deadline)
+  /**
+   * Remove the node from our heap if still pending and
+   * return if it was removed.
+   */
+  synchronized boolean remove(Node node)
+  {
+    int i = node.index;
+    if (i < 0 || i >= size || heap[i] != node) return false;
+    removeAt(i);
+    return true;
+  }
+
+  /**
+   * Remove the node at the given index and restore heap order.
+   */
+  private Node removeAt(int i)
+  {
+    Node node = heap[i];
+    Node last = heap[--size];
+    heap[size] = null;
+    node.index = -1;
+    if (i < size)
     {
-      node.next = head;
-      head = node;
-      return true;
+      heap[i] = last;
+      last.index = i;
+      if (siftUp(i) == i) siftDown(i);
     }
+    return node;
+  }
 
-    // find insertion point in linked list
-    Node last = head, cur = head.next;
-    while (cur != null)
+  private int siftUp(int i)
+  {
+    Node node = heap[i];
+    while (i > 0)
     {
-      if (node.deadline < cur.deadline)
-      {
-        node.next = cur;
-        last.next = node;
-        return false;
-      }
-
-      last = cur;
-      cur = cur.next;
+      int parent = (i - 1) >>> 1;
+      Node p = heap[parent];
+      if (!node.before(p)) break;
+      heap[i] = p;
+      p.index = i;
+      i = parent;
     }
+    heap[i] = node;
+    node.index = i;
+    return i;
+  }
 
-    // this node has the oldest deadline, append to linked list
-    last.next = node;
-    return false;
+  private void siftDown(int i)
+  {
+    Node node = heap[i];
+    int half = size >>> 1;
+    while (i < half)
+    {
+      int child = (i << 1) + 1;
+      int right = child + 1;
+      if (right < size && heap[right].before(heap[child])) child = right;
+      Node c = heap[child];
+      if (!c.before(node)) break;
+      heap[i] = c;
+      c.index = i;
+      i = child;
+    }
+    heap[i] = node;
+    node.index = i;
   }
 
   /**
@@ -112,25 +153,35 @@ public class Scheduler implements Runnable
     alive = false;
     try { thread.interrupt(); } catch (Throwable e) {}
 
+    // clear heap
+    Node[] nodes = heap;
+    int n = size;
+    heap = new Node[16];
+    size = 0;
+
     // call cancel on everything in queue
-    Node node = head;
-    while (node != null)
+    for (int i=0; i<n; ++i)
     {
-      try { node.work.cancel(); } catch (Throwable e) { e.printStackTrace(); }
-      node = node.next;
+      nodes[i].index = -1;
+      try { nodes[i].work.cancel(); } catch (Throwable e) { e.printStackTrace(); }
     }
+  }
 
-    // clear queue
-    head = null;
+  /**
+   * Get the number of pending work items.
+   */
+  public synchronized int size()
+  {
+    return size;
   }
 
   /**
    * Debug
    */
-  public void dump()
+  public synchronized void dump()
   {
-    for (Node n = head; n != null; n = n.next)
-      System.out.println("  " + n);
+    for (int i=0; i<size; ++i)
+      System.out.println("  " + heap[i]);
   }
 
 //////////////////////////////////////////////////////////////////////////
@@ -148,7 +199,8 @@ public class Scheduler implements Runnable
         {
           // if no work ready to go, then wait for next deadline
           long now = System.nanoTime();
-          if (head == null || head.deadline > now)
+          Node head = size > 0 ? heap[0] : null;
+          if (head == null || head.deadline - now > 0)
           {
             long toSleep = head != null ? head.deadline - now : Long.MAX_VALUE;
             long ms = toSleep / 1000000L;
@@ -158,8 +210,7 @@ public class Scheduler implements Runnable
           }
 
           // dequeue the next work item while holding lock
-          work = head.work;
-          head = head.next;
+          work = removeAt(0).work;
         }
 
         // work callback
@@ -173,20 +224,48 @@ public class Scheduler implements Runnable
   }
 
 //////////////////////////////////////////////////////////////////////////
-// Node (linked list of work)
+// Node (heap entry of work)
 //////////////////////////////////////////////////////////////////////////
 
-  static class Node
+  public final class Node
   {
+    Node(long deadline, long seq, Work work)
+    {
+      this.deadline = deadline;
+      this.seq = seq;
+      this.work = work;
+    }
+
+    /**
+     * Remove this work item from the scheduler without calling
+     * its cancel callback.  Return false if it has already been
+     * dequeued for execution or cancelled.
+     */
+    public boolean cancel()
+    {
+      return remove(this);
+    }
+
+    /**
+     * Order by deadline, then by order scheduled
+     */
+    boolean before(Node that)
+    {
+      long diff = this.deadline - that.deadline;
+      if (diff != 0) return diff < 0;
+      return this.seq < that.seq;
+    }
+
     public String toString()
     {
       long ms = (deadline - System.nanoTime()) / 1000000L;
       return "Deadline: " + ms + "ms  Work: " + work;
     }
 
-    long deadline;   // System.nanoTime
-    Work work;       // item of work to execute
-    Node next;       // next node in linked list
+    final long deadline;   // System.nanoTime
+    final long seq;        // order scheduled for equal deadlines
+    final Work work;       // item of work to execute
+    int index;             // index in heap or -1 if removed
   }
 
 //////////////////////////////////////////////////////////////////////////
@@ -203,8 +282,10 @@ public class Scheduler implements Runnable
 // Fields
 //////////////////////////////////////////////////////////////////////////
 
-  volatile boolean alive;  // is this scheduler alive
-  final String name;       // actor pool name
-  Thread thread;           // thread currently being used
-  Node head;               // linked list sorted by deadline
+  volatile boolean alive;               // is this scheduler alive
+  final String name;                    // actor pool name
+  Thread thread;                        // thread currently being used
+  private Node[] heap = new Node[16];   // binary min-heap by deadline
+  private int size;                     // number of nodes in heap
+  private long seq;                     // keeps equal deadlines fifo
 }
\ No newline at end of file
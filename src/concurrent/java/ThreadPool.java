@@ -16,6 +16,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * ThreadPool manages a pool of threads optimized for the Actor framework.
  */
 public class ThreadPool
+  extends WorkPool
 {
 
 //////////////////////////////////////////////////////////////////////////
@@ -27,33 +28,23 @@ public class ThreadPool
    */
   public ThreadPool(String name, int max)
   {
-    this.name       = name;
-    this.max        = max;
+    super(name, max);
     this.idleTime   = 5000; // 5sec
     this.idle       = new LinkedList();
     this.pending    = new LinkedList();
     this.hasPending = new AtomicBoolean();
     this.workers    = new HashMap(max*3);
-    this.state      = RUNNING;
   }
 
 //////////////////////////////////////////////////////////////////////////
 // Lifecycle
 //////////////////////////////////////////////////////////////////////////
 
-  /**
-   * Has this pool been stopped or killed.
-   */
-  public final boolean isStopped()
-  {
-    return state != RUNNING;
-  }
-
   /**
    * Has all the work in this queue finished processing and
    * all threads terminated.
    */
-  public final boolean isDone()
+  public boolean isDone()
   {
     if (state == DONE) return true;
     synchronized (this)
@@ -67,7 +58,7 @@ public class ThreadPool
   /**
    * Orderly shutdown of threads.  All pending work items are processed.
    */
-  public final synchronized void stop()
+  public synchronized void stop()
   {
     state = STOPPING;
 
@@ -84,7 +75,7 @@ public class ThreadPool
    * Unorderly shutdown of threads.  All pending work are discarded,
    * and interrupt is sent to each thread.
    */
-  public final synchronized void kill()
+  public synchronized void kill()
   {
     state = STOPPING;
 
@@ -106,7 +97,7 @@ public class ThreadPool
    * Wait for all threads to stop.
    * Return true on success or false on timeout.
    */
-  public final synchronized boolean join(long msTimeout)
+  public synchronized boolean join(long msTimeout)
     throws InterruptedException
   {
     long deadline = System.nanoTime()/1000000L + msTimeout;
@@ -350,14 +341,7 @@ public class ThreadPool
 // Fields
 //////////////////////////////////////////////////////////////////////////
 
-  static final int RUNNING  = 0;
-  static final int STOPPING = 1;
-  static final int DONE     = 2;
-
-  final String name;                // actor pool name
-  final int max;                    // maximum number of threads to use
   final int idleTime;               // time in ms to let threads idle (5sec)
-  private volatile int state;       // life cycle state
   private LinkedList idle;          // idle threads waiting for work
   private AtomicBoolean hasPending; // if pending is non-empty
   private LinkedList pending;       // pending working we don't have threads for yet
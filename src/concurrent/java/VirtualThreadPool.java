@@ -0,0 +1,213 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+package fan.concurrent;
+
+import fan.sys.*;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * VirtualThreadPool is a WorkPool which runs each actor work cycle
+ * on a JDK virtual thread instead of a pooled platform thread.  Actors
+ * which block on I/O or sleep unmount from their carrier thread, so a
+ * pool may have a large number of concurrently blocked actors.  The pool's
+ * max is the number of actors allowed to run concurrently; once reached
+ * additional actors are queued until a running actor completes its cycle.
+ *
+ * Virtual threads require Java 21 or later; we bind to them reflectively
+ * so that this class still compiles and loads on older JDKs.  Note that
+ * on JDKs before 24 blocking inside a synchronized block (such as
+ * Future.get) pins the carrier thread.
+ */
+public class VirtualThreadPool
+  extends WorkPool
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Constructor
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Return if the current JVM supports virtual threads.
+   */
+  public static boolean isSupported()
+  {
+    return makeFactory("check") != null;
+  }
+
+  /**
+   * Construct with max number of concurrently running actors.
+   */
+  public VirtualThreadPool(String name, int max)
+  {
+    super(name, max);
+    this.factory = makeFactory(name + "-Virtual-");
+    if (factory == null) throw UnsupportedErr.make("Virtual threads require Java 21 or later");
+    this.pending = new LinkedList();
+    this.threads = new HashMap();
+  }
+
+  /**
+   * Use reflection to call Thread.ofVirtual().name(prefix, 0).factory()
+   */
+  private static ThreadFactory makeFactory(String prefix)
+  {
+    try
+    {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Class cls = Class.forName("java.lang.Thread$Builder");
+      builder = cls.getMethod("name", new Class[] { String.class, long.class }).invoke(builder, new Object[] { prefix, Long.valueOf(0) });
+      return (ThreadFactory)cls.getMethod("factory").invoke(builder);
+    }
+    catch (Throwable e)
+    {
+      return null;
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Lifecycle
+//////////////////////////////////////////////////////////////////////////
+
+  public synchronized boolean isDone()
+  {
+    return state != RUNNING && threads.size() == 0;
+  }
+
+  public synchronized void stop()
+  {
+    // we have no idle threads, so just let the running ones finish
+    state = STOPPING;
+  }
+
+  public synchronized void kill()
+  {
+    state = STOPPING;
+
+    // kill all the pending work
+    while (true)
+    {
+      ThreadPool.Work work = (ThreadPool.Work)pending.poll();
+      if (work == null) break;
+      work._kill();
+    }
+    hasPending = false;
+
+    // interupt each thread
+    Iterator it = threads.values().iterator();
+    while (it.hasNext()) ((Thread)it.next()).interrupt();
+  }
+
+  public synchronized boolean join(long msTimeout)
+    throws InterruptedException
+  {
+    long deadline = System.nanoTime()/1000000L + msTimeout;
+    while (true)
+    {
+      if (threads.size() == 0) return true;
+      long toSleep = deadline - System.nanoTime()/1000000L;
+      if (toSleep <= 0) return false;
+      wait(toSleep);
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Work Management
+//////////////////////////////////////////////////////////////////////////
+
+  boolean hasPending() { return hasPending; }
+
+  public synchronized void submit(ThreadPool.Work work)
+  {
+    // if below max, then run on a new virtual thread
+    if (threads.size() < max)
+    {
+      Thread t = factory.newThread(new Runner(work));
+      threads.put(t, t);
+      t.start();
+      return;
+    }
+
+    // queue the work until a running thread completes
+    pending.addLast(work);
+    hasPending = true;
+  }
+
+  /**
+   * Called by a runner when it completes a work item.  Return the
+   * next pending work item or if none then remove the thread.
+   */
+  synchronized ThreadPool.Work next(Thread t)
+  {
+    ThreadPool.Work work = (ThreadPool.Work)pending.poll();
+    if (work != null)
+    {
+      hasPending = !pending.isEmpty();
+      return work;
+    }
+    threads.remove(t);
+    notifyAll();
+    return null;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Debug
+//////////////////////////////////////////////////////////////////////////
+
+  public synchronized void dump(fan.sys.OutStream out)
+  {
+    out.printLine("  virtual:    true");
+    out.printLine("  hasPending: " + hasPending());
+    out.printLine("  pending:    " + pending.size());
+    out.printLine("  running:    " + threads.size());
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Runner
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Runner executes work on its virtual thread until no work is pending.
+   */
+  final class Runner implements Runnable
+  {
+    Runner(ThreadPool.Work work) { this.work = work; }
+
+    public void run()
+    {
+      Thread t = Thread.currentThread();
+      try
+      {
+        while (work != null)
+        {
+          try { work._work(); } catch (Throwable e) { e.printStackTrace(); }
+          work = next(t);
+        }
+      }
+      catch (Throwable e)
+      {
+        e.printStackTrace();
+        synchronized (VirtualThreadPool.this)
+        {
+          threads.remove(t);
+          VirtualThreadPool.this.notifyAll();
+        }
+      }
+    }
+
+    private ThreadPool.Work work;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private final ThreadFactory factory;    // Thread.ofVirtual factory
+  private final LinkedList pending;       // work waiting to run
+  private final HashMap threads;          // running virtual threads
+  private volatile boolean hasPending;    // if pending is non-empty
+}
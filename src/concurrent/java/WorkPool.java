@@ -0,0 +1,95 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+package fan.concurrent;
+
+/**
+ * WorkPool is the base class for the thread pools which an ActorPool
+ * uses to run the work of its actors.
+ */
+public abstract class WorkPool
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Constructor
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Construct with max number of threads.
+   */
+  WorkPool(String name, int max)
+  {
+    this.name  = name;
+    this.max   = max;
+    this.state = RUNNING;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Lifecycle
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Has this pool been stopped or killed.
+   */
+  public boolean isStopped()
+  {
+    return state != RUNNING;
+  }
+
+  /**
+   * Has all the work in this pool finished processing and
+   * all threads terminated.
+   */
+  public abstract boolean isDone();
+
+  /**
+   * Orderly shutdown of threads.  All pending work items are processed.
+   */
+  public abstract void stop();
+
+  /**
+   * Unorderly shutdown of threads.  All pending work is discarded,
+   * and interrupt is sent to each thread.
+   */
+  public abstract void kill();
+
+  /**
+   * Wait for all threads to stop.
+   * Return true on success or false on timeout.
+   */
+  public abstract boolean join(long msTimeout)
+    throws InterruptedException;
+
+//////////////////////////////////////////////////////////////////////////
+// Work Management
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Return if we have pending work awaiting a thread.
+   */
+  abstract boolean hasPending();
+
+  /**
+   * Submit the given work to be run by a thread in this pool.
+   */
+  public abstract void submit(ThreadPool.Work work);
+
+//////////////////////////////////////////////////////////////////////////
+// Debug
+//////////////////////////////////////////////////////////////////////////
+
+  public abstract void dump(fan.sys.OutStream out);
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  static final int RUNNING  = 0;
+  static final int STOPPING = 1;
+  static final int DONE     = 2;
+
+  final String name;                // actor pool name
+  final int max;                    // maximum number of threads to use
+  volatile int state;               // life cycle state
+}
@@ -0,0 +1,272 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+package fan.concurrent;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WorkStealingPool is a WorkPool backed by a ForkJoinPool running
+ * in async mode.  Each worker thread owns its own deque of work and idle
+ * workers steal from busy ones, so submitting an actor does not go through
+ * a global monitor.  Work submitted from one of our own workers is pushed
+ * to that worker's local deque; work submitted from any other thread goes
+ * to the pool's shared submission queues.
+ *
+ * Actor ordering is preserved because an actor is only ever submitted
+ * once until its work cycle completes.  The number of threads is capped
+ * at the ActorPool's maxThreads: the ForkJoinPool may try to add spare
+ * threads to compensate for blocked workers, but our thread factory
+ * refuses to create more than max.  So like ThreadPool, once every
+ * thread is blocked the remaining work waits until one is free.
+ */
+public class WorkStealingPool
+  extends WorkPool
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Constructor
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Construct with max number of threads.
+   */
+  public WorkStealingPool(String name, int max)
+  {
+    super(name, max);
+    this.active  = new AtomicInteger();
+    this.queued  = new AtomicInteger();
+    this.workers = new AtomicInteger();
+    this.threads = new ConcurrentHashMap();
+    this.pool    = new ForkJoinPool(Math.min(max, MAX_PARALLELISM), new Factory(), null, true);
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Lifecycle
+//////////////////////////////////////////////////////////////////////////
+
+  public boolean isDone()
+  {
+    if (state == RUNNING || active.get() > 0) return false;
+    terminate();
+    return pool.isTerminated();
+  }
+
+  public void stop()
+  {
+    state = STOPPING;
+    if (active.get() == 0) terminate();
+  }
+
+  public void kill()
+  {
+    // pending work is killed as it is dequeued by the workers
+    killed = true;
+    state = STOPPING;
+    if (active.get() == 0) terminate();
+
+    // interupt each thread
+    Iterator it = threads.keySet().iterator();
+    while (it.hasNext()) ((Thread)it.next()).interrupt();
+  }
+
+  public boolean join(long msTimeout)
+    throws InterruptedException
+  {
+    long deadline = System.nanoTime()/1000000L + msTimeout;
+    synchronized (this)
+    {
+      // wait until all outstanding work has completed
+      while (state == RUNNING || active.get() > 0)
+      {
+        long toSleep = deadline - System.nanoTime()/1000000L;
+        if (toSleep <= 0) return false;
+        wait(toSleep);
+      }
+    }
+
+    // then wait for the worker threads to exit
+    terminate();
+    long toSleep = deadline - System.nanoTime()/1000000L;
+    return pool.awaitTermination(Math.max(toSleep, 0L), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Called once we are stopping and all outstanding work has completed.
+   */
+  private void terminate()
+  {
+    pool.shutdown();
+    synchronized (this) { notifyAll(); }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Work Management
+//////////////////////////////////////////////////////////////////////////
+
+  boolean hasPending()
+  {
+    return queued.get() > 0;
+  }
+
+  public void submit(ThreadPool.Work work)
+  {
+    active.incrementAndGet();
+    queued.incrementAndGet();
+    Task task = new Task(work);
+    try
+    {
+      // push onto our local deque if submitted from one of our workers
+      if (ForkJoinTask.getPool() == pool)
+        task.fork();
+      else
+        pool.execute(task);
+    }
+    catch (RejectedExecutionException e)
+    {
+      // pool has already terminated, so we can never run this work
+      queued.decrementAndGet();
+      done();
+      work._kill();
+    }
+  }
+
+  /**
+   * Execute a work item on the current worker thread.
+   */
+  void run(ThreadPool.Work work)
+  {
+    queued.decrementAndGet();
+    try
+    {
+      if (killed) work._kill();
+      else work._work();
+    }
+    catch (Throwable e)
+    {
+      e.printStackTrace();
+    }
+    finally
+    {
+      done();
+    }
+  }
+
+  /**
+   * Called when a submitted work item is complete.
+   */
+  private void done()
+  {
+    if (active.decrementAndGet() == 0 && state != RUNNING) terminate();
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Debug
+//////////////////////////////////////////////////////////////////////////
+
+  public void dump(fan.sys.OutStream out)
+  {
+    out.printLine("  workStealing: true");
+    out.printLine("  hasPending:   " + hasPending());
+    out.printLine("  active:       " + active.get());
+    out.printLine("  pending:      " + queued.get());
+    out.printLine("  queued:       " + pool.getQueuedTaskCount());
+    out.printLine("  submissions:  " + pool.getQueuedSubmissionCount());
+    out.printLine("  steals:       " + pool.getStealCount());
+    out.printLine("  workers:      " + pool.getPoolSize());
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Task
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Task wraps one submission of a work item.
+   */
+  final class Task extends ForkJoinTask
+  {
+    Task(ThreadPool.Work work) { this.work = work; }
+
+    public Object getRawResult() { return null; }
+
+    protected void setRawResult(Object v) {}
+
+    protected boolean exec()
+    {
+      run(work);
+      return true;
+    }
+
+    final ThreadPool.Work work;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Factory
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Factory for named worker threads which we track for kill.  Return
+   * null to reject a thread once we have max, which the ForkJoinPool
+   * handles by running with the workers it has.
+   */
+  final class Factory implements ForkJoinPool.ForkJoinWorkerThreadFactory
+  {
+    public ForkJoinWorkerThread newThread(ForkJoinPool p)
+    {
+      if (workers.incrementAndGet() > max)
+      {
+        workers.decrementAndGet();
+        return null;
+      }
+      return new ForkWorker(p, name + "-Worker-" + counter.getAndIncrement());
+    }
+
+    private final AtomicInteger counter = new AtomicInteger();
+  }
+
+  /**
+   * ForkWorker registers itself while alive so kill can interrupt it.
+   */
+  final class ForkWorker extends ForkJoinWorkerThread
+  {
+    ForkWorker(ForkJoinPool p, String name)
+    {
+      super(p);
+      setName(name);
+    }
+
+    protected void onStart()
+    {
+      super.onStart();
+      threads.put(this, this);
+    }
+
+    protected void onTermination(Throwable e)
+    {
+      threads.remove(this);
+      workers.decrementAndGet();
+      super.onTermination(e);
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  static final int MAX_PARALLELISM = 0x7fff;
+
+  private final ForkJoinPool pool;        // work stealing scheduler
+  private final AtomicInteger active;     // submitted work not yet complete
+  private final AtomicInteger queued;     // submitted work not yet started
+  private final AtomicInteger workers;    // threads created and not terminated
+  private final ConcurrentHashMap threads; // live worker threads
+  private volatile boolean killed;        // if kill has been called
+}
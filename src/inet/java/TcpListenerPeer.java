@@ -9,13 +9,13 @@ package fan.inet;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.*;
 import java.util.*;
 import java.security.*;
 import javax.net.ssl.*;
 import fan.sys.*;
 
 public class TcpListenerPeer
-  extends ServerSocket
 {
 
 //////////////////////////////////////////////////////////////////////////
@@ -46,6 +46,7 @@ public class TcpListenerPeer
   public TcpListenerPeer()
     throws IOException
   {
+    this.socket = TcpSocketPeer.channels ? ServerSocketChannel.open().socket() : new ServerSocket();
   }
 
 //////////////////////////////////////////////////////////////////////////
@@ -59,12 +60,12 @@ public class TcpListenerPeer
 
   public boolean isBound(TcpListener fan)
   {
-    return isBound();
+    return socket.isBound();
   }
 
   public boolean isClosed(TcpListener fan)
   {
-    return isClosed();
+    return socket.isClosed();
   }
 
 //////////////////////////////////////////////////////////////////////////
@@ -73,16 +74,16 @@ public class TcpListenerPeer
 
   public IpAddr localAddr(TcpListener fan)
   {
-    if (!isBound()) return null;
-    InetAddress addr = getInetAddress();
+    if (!socket.isBound()) return null;
+    InetAddress addr = socket.getInetAddress();
     if (addr == null) return null;
     return IpAddrPeer.make(addr);
   }
 
   public Long localPort(TcpListener fan)
   {
-    if (!isBound()) return null;
-    int port = getLocalPort();
+    if (!socket.isBound()) return null;
+    int port = socket.getLocalPort();
     if (port <= 0) return null;
     return Long.valueOf(port);
   }
@@ -97,7 +98,7 @@ public class TcpListenerPeer
     {
       InetAddress javaAddr = (addr == null) ? null : addr.peer.java;
       int javaPort = (port == null) ? 0 : port.intValue();
-      bind(new InetSocketAddress(javaAddr, javaPort), (int)backlog);
+      socket.bind(new InetSocketAddress(javaAddr, javaPort), (int)backlog);
       return fan;
     }
     catch (IOException e)
@@ -110,10 +111,7 @@ public class TcpListenerPeer
   {
     try
     {
-      TcpSocket s = TcpSocketPeer.makeNative(new Socket(), this.config, true);
-      implAccept(s.peer.socket);
-      s.peer.connected(s);
-      return s;
+      return TcpSocketPeer.makeAccepted(socket.accept(), this.config);
     }
     catch (IOException e)
     {
@@ -125,7 +123,7 @@ public class TcpListenerPeer
   {
     try
     {
-      close();
+      socket.close();
       return true;
     }
     catch (Exception e)
@@ -142,7 +140,7 @@ public class TcpListenerPeer
   {
     try
     {
-      return getReceiveBufferSize();
+      return socket.getReceiveBufferSize();
     }
     catch (IOException e)
     {
@@ -154,7 +152,7 @@ public class TcpListenerPeer
   {
     try
     {
-      setReceiveBufferSize((int)v);
+      socket.setReceiveBufferSize((int)v);
     }
     catch (IOException e)
     {
@@ -166,7 +164,7 @@ public class TcpListenerPeer
   {
     try
     {
-      return getReuseAddress();
+      return socket.getReuseAddress();
     }
     catch (IOException e)
     {
@@ -178,7 +176,7 @@ public class TcpListenerPeer
   {
     try
     {
-      setReuseAddress(v);
+      socket.setReuseAddress(v);
     }
     catch (IOException e)
     {
@@ -190,7 +188,7 @@ public class TcpListenerPeer
   {
     try
     {
-      int timeout = getSoTimeout();
+      int timeout = socket.getSoTimeout();
       if (timeout <= 0) return null;
       return Duration.makeMillis(timeout);
     }
@@ -205,9 +203,9 @@ public class TcpListenerPeer
     try
     {
       if (v == null)
-        setSoTimeout(0);
+        socket.setSoTimeout(0);
       else
-        setSoTimeout((int)(v.millis()));
+        socket.setSoTimeout((int)(v.millis()));
     }
     catch (IOException e)
     {
@@ -219,6 +217,7 @@ public class TcpListenerPeer
 // Fields
 //////////////////////////////////////////////////////////////////////////
 
+  private ServerSocket socket;
   private SocketConfig config;
   private int inBufSize = 4096;
   private int outBufSize = 4096;
@@ -12,6 +12,7 @@ import fan.crypto.*;
 import fanx.interop.*;
 import java.io.*;
 import java.net.*;
+import java.nio.channels.*;
 import java.security.*;
 import javax.net.ssl.*;
 
@@ -27,7 +28,14 @@ public class TcpSocketPeer
 
   public static TcpSocketPeer make(TcpSocket fan)
   {
-    return new TcpSocketPeer(new Socket());
+    try
+    {
+      return new TcpSocketPeer(channels ? SocketChannel.open().socket() : new Socket());
+    }
+    catch (IOException e)
+    {
+      throw IOErr.make(e);
+    }
   }
 
   public TcpSocket init(TcpSocket fan, SocketConfig config)
@@ -37,6 +45,12 @@ public class TcpSocketPeer
     // if socket is alredy connected, then it is already configured.
     if (fan.isConnected()) return fan;
 
+    configure(fan, config);
+    return fan;
+  }
+
+  private void configure(TcpSocket fan, SocketConfig config)
+  {
     setInBufferSize(fan, config.inBufferSize);
     setOutBufferSize(fan, config.outBufferSize);
     setKeepAlive(fan, config.keepAlive);
@@ -47,7 +61,6 @@ public class TcpSocketPeer
     setReceiveTimeout(fan, config.receiveTimeout);
     setNoDelay(fan, config.noDelay);
     setTrafficClass(fan, config.trafficClass);
-    return fan;
   }
 
   public static TcpSocket makeNative(Object raw, SocketConfig config, boolean isServer)
@@ -56,6 +69,7 @@ public class TcpSocketPeer
     {
       final Socket socket = (Socket)raw;
       final TcpSocket self = new TcpSocket();
+      self.peer.socket.close();
       self.peer = new TcpSocketPeer(socket);
       self.peer.isServer= isServer;
       self.peer.init(self, config);
@@ -68,6 +82,23 @@ public class TcpSocketPeer
     }
   }
 
+  /**
+   * Make a socket accepted by a TcpListener which is connected
+   * but still needs to be configured.
+   */
+  static TcpSocket makeAccepted(Socket socket, SocketConfig config)
+    throws IOException
+  {
+    final TcpSocket self = new TcpSocket();
+    self.peer.socket.close();
+    self.peer = new TcpSocketPeer(socket);
+    self.peer.isServer = true;
+    self.peer.config = config;
+    self.peer.configure(self, config);
+    self.peer.connected(self);
+    return self;
+  }
+
   public TcpSocketPeer(Socket socket)
   {
     this.socket = socket;
@@ -250,7 +281,18 @@ public class TcpSocketPeer
     this.remoteAddr = IpAddrPeer.make(sockAddr.getAddress());
     this.remotePort = sockAddr.getPort();
     this.in  = SysInStream.make(socket.getInputStream(), getInBufferSize(fan));
-    this.out = SysOutStream.make(socket.getOutputStream(), getOutBufferSize(fan));
+    this.out = SysOutStream.make(socket.getOutputStream(), getOutBufferSize(fan), outChannel());
+  }
+
+  /**
+   * Channel file regions piped to our output stream are transferred
+   * to, or null.  A TLS socket layered on a channel socket reports the
+   * plain channel so it must never be used.
+   */
+  private WritableByteChannel outChannel()
+  {
+    if (socket instanceof SSLSocket) return null;
+    return socket.getChannel();
   }
 
   public InStream in(TcpSocket fan)
@@ -631,6 +673,15 @@ public class TcpSocketPeer
 // Fields
 //////////////////////////////////////////////////////////////////////////
 
+  /**
+   * Create sockets from channels so that files piped to their output
+   * can use FileChannel.transferTo.  Before Java 13 the streams of a
+   * channel socket serialize reads and writes on one lock, so a thread
+   * blocked reading would stall another thread writing.  Note that
+   * interrupting a thread blocked on a channel socket closes it.
+   */
+  static final boolean channels = Sys.javaVersion >= 13;
+
   Socket socket;
   private SocketConfig config;
   boolean isServer = false;
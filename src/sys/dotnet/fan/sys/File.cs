@@ -341,6 +341,10 @@ namespace Fan.Sys
     public Buf open() { return open(rwStr); }
     public abstract Buf open(string mode);
 
+    public Buf openBuffered() { return openBuffered(rwStr, 4096); }
+    public Buf openBuffered(string mode) { return openBuffered(mode, 4096); }
+    public virtual Buf openBuffered(string mode, long bufSize) { return open(mode); }
+
     public Buf mmap() { return mmap(rwStr, 0, null); }
     public Buf mmap(string mode) { return mmap(mode, 0, null); }
     public Buf mmap(string mode, long pos) { return mmap(mode, pos, null); }
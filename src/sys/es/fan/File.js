@@ -316,6 +316,7 @@ class File extends Obj {
 //////////////////////////////////////////////////////////////////////////
 
   open(mode) { this.#throwNotSupported("open"); }
+  openBuffered(mode="rw", bufSize=4096) { return this.open(mode); }
   mmap(mode, pos, size) { this.#throwNotSupported("mmap"); }
 
   in(bufSize=4096) { this.#throwNotSupported("in"); }
@@ -346,6 +347,8 @@ class File extends Obj {
 
   eachLine(f) { this.in(Int.__chunk).eachLine(f); }
 
+  seqLines() { return Seq.lines$(() => this.in(Int.__chunk)); }
+
   readAllStr(normalizeNewlines=true) {
     return this.in(Int.__chunk).readAllStr(normalizeNewlines);
   }
@@ -435,6 +435,8 @@ class InStream extends Obj {
     }
   }
 
+  seqLines() { return Seq.lines$(() => this); }
+
   readAllStr(normalizeNewlines=true) {
     try {
       let s = "";
@@ -670,6 +670,44 @@ push(obj) {
     return acc;
   }
 
+//////////////////////////////////////////////////////////////////////////
+// Parallel
+//////////////////////////////////////////////////////////////////////////
+
+  // JavaScript is single threaded so these run sequentially
+
+  parSort(f=null) { return this.sort(f); }
+
+  parMap(f) { return this.map(...arguments); }
+
+  parFindAll(f) { return this.findAll(f); }
+
+  parReduce(init, f) {
+    let reduction = init;
+    for (let i=0; i<this.#size; ++i)
+      reduction = f(reduction, this.#values[i]);
+    return reduction;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Persistent
+//////////////////////////////////////////////////////////////////////////
+
+  // there is no structurally shared list in JavaScript,
+  // so each of these copies the list then makes it immutable
+
+  withAdd(item) { return this.dup().add(item).toImmutable(); }
+
+  withInsert(index, item) { return this.dup().insert(index, item).toImmutable(); }
+
+  withSet(index, item) { return this.dup().set(index, item).toImmutable(); }
+
+  withRemoveAt(index) {
+    const dup = this.dup();
+    dup.removeAt(index);
+    return dup.toImmutable();
+  }
+
 //////////////////////////////////////////////////////////////////////////
 // Readonly
 //////////////////////////////////////////////////////////////////////////
@@ -856,6 +894,11 @@ push(obj) {
 // Conversion
 //////////////////////////////////////////////////////////////////////////
 
+  seq() {
+    const list = this;
+    return Seq.gen$(function*() { for (let i=0; i<list.size(); ++i) yield list.get(i); });
+  }
+
   join(sep="", f=null) {
     if (this.#size === 0) return "";
     if (this.#size === 1) {
@@ -138,6 +138,16 @@ class Map extends Obj {
     return List.make(this.#type.v, array);
   }
 
+  seqKeys() {
+    const m = this;
+    return Seq.gen$(function*() { const keys = m.keys(); for (let i=0; i<keys.size(); ++i) yield keys.get(i); });
+  }
+
+  seqVals() {
+    const m = this;
+    return Seq.gen$(function*() { const vals = m.vals(); for (let i=0; i<vals.size(); ++i) yield vals.get(i); });
+  }
+
   set(key, val) {
     this.#modify();
     if (key == null)
@@ -470,6 +480,21 @@ class Map extends Obj {
     return s;
   }
 
+//////////////////////////////////////////////////////////////////////////
+// Persistent
+//////////////////////////////////////////////////////////////////////////
+
+  // there is no structurally shared map in JavaScript,
+  // so each of these copies the map then makes it immutable
+
+  withSet(key, val) { return this.dup().set(key, val).toImmutable(); }
+
+  withRemove(key) {
+    const dup = this.dup();
+    dup.remove(key);
+    return dup.toImmutable();
+  }
+
 //////////////////////////////////////////////////////////////////////////
 // Readonly
 //////////////////////////////////////////////////////////////////////////
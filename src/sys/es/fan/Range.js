@@ -156,6 +156,16 @@ class Range extends Obj {
     return acc;
   }
 
+  seq() {
+    const start = this.#start;
+    const step = start < this.#end ? 1 : -1;
+    const end = this.#exclusive ? this.#end - step : this.#end;
+    return Seq.gen$(function*() {
+      if (step > 0) for (let i=start; i<=end; ++i) yield i;
+      else for (let i=start; i>=end; --i) yield i;
+    });
+  }
+
   toList() {
     let start = this.#start;
     let end = this.#end;
@@ -0,0 +1,195 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+
+/**
+ * Seq is a lazy sequence of items.  Each Seq wraps a generator function
+ * which is called to start a new iteration for every terminal operation.
+ * Terminal operations use for-of, so breaking out early calls return()
+ * on the generator chain which runs the finally blocks that close any
+ * underlying stream.
+ */
+class Seq extends Obj {
+
+//////////////////////////////////////////////////////////////////////////
+// Constructor
+//////////////////////////////////////////////////////////////////////////
+
+  constructor(gen) {
+    super();
+    this.#gen = gen;
+  }
+
+  #gen;
+
+  static gen$(gen) { return new Seq(gen); }
+
+  static lines$(open) {
+    return new Seq(function*() {
+      const ins = open();
+      try {
+        let line;
+        while ((line = ins.readLine()) != null) yield line;
+      }
+      finally {
+        try { ins.close(); } catch (err) { Err.make(err).trace(); }
+      }
+    });
+  }
+
+  iter$() { return this.#gen(); }
+
+//////////////////////////////////////////////////////////////////////////
+// Intermediate
+//////////////////////////////////////////////////////////////////////////
+
+  filter(f) {
+    const up = this;
+    return new Seq(function*() { for (const x of up.iter$()) if (f(x)) yield x; });
+  }
+
+  exclude(f) {
+    const up = this;
+    return new Seq(function*() { for (const x of up.iter$()) if (!f(x)) yield x; });
+  }
+
+  map(f) {
+    const up = this;
+    return new Seq(function*() { for (const x of up.iter$()) yield f(x); });
+  }
+
+  flatMap(f) {
+    const up = this;
+    return new Seq(function*() {
+      for (const x of up.iter$()) {
+        const r = f(x);
+        if (r == null) continue;
+        if (r instanceof List) { for (let i=0; i<r.size(); ++i) yield r.get(i); }
+        else if (r instanceof Seq) yield* r.iter$();
+        else throw ArgErr.make("flatMap func must return List or Seq, not " + ObjUtil.typeof(r));
+      }
+    });
+  }
+
+  limit(n) {
+    if (n < 0) throw ArgErr.make("limit < 0: " + n);
+    const up = this;
+    return new Seq(function*() {
+      if (n == 0) return;
+      let count = 0;
+      for (const x of up.iter$()) {
+        yield x;
+        if (++count >= n) return;
+      }
+    });
+  }
+
+  skip(n) {
+    if (n < 0) throw ArgErr.make("skip < 0: " + n);
+    const up = this;
+    return new Seq(function*() {
+      let skipped = 0;
+      for (const x of up.iter$()) {
+        if (skipped < n) { ++skipped; continue; }
+        yield x;
+      }
+    });
+  }
+
+  takeWhile(f) {
+    const up = this;
+    return new Seq(function*() {
+      for (const x of up.iter$()) {
+        if (!f(x)) return;
+        yield x;
+      }
+    });
+  }
+
+  distinct() {
+    const up = this;
+    return new Seq(function*() {
+      // bucket the items seen so far by hash
+      const buckets = Object.create(null);
+      let seenNull = false;
+      for (const x of up.iter$()) {
+        if (x == null) {
+          if (seenNull) continue;
+          seenNull = true;
+        }
+        else {
+          const h = ObjUtil.hash(x);
+          const bucket = buckets[h] || (buckets[h] = []);
+          if (bucket.some((y) => ObjUtil.equals(x, y))) continue;
+          bucket.push(x);
+        }
+        yield x;
+      }
+    });
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Terminal
+//////////////////////////////////////////////////////////////////////////
+
+  each(f) { for (const x of this.iter$()) f(x); }
+
+  eachWhile(f) {
+    for (const x of this.iter$()) {
+      const r = f(x);
+      if (r != null) return r;
+    }
+    return null;
+  }
+
+  first() {
+    for (const x of this.iter$()) return x;
+    return null;
+  }
+
+  find(f) {
+    for (const x of this.iter$()) if (f(x)) return x;
+    return null;
+  }
+
+  any(f) {
+    for (const x of this.iter$()) if (f(x)) return true;
+    return false;
+  }
+
+  all(f) {
+    for (const x of this.iter$()) if (!f(x)) return false;
+    return true;
+  }
+
+  count() {
+    let n = 0;
+    for (const x of this.iter$()) ++n;
+    return n;
+  }
+
+  reduce(reduction, f) {
+    for (const x of this.iter$()) reduction = f(reduction, x);
+    return reduction;
+  }
+
+  toList(of=Obj.type$.toNullable()) {
+    const acc = List.make(of, []);
+    for (const x of this.iter$()) acc.add(x);
+    return acc;
+  }
+
+  join(sep="", f=null) {
+    let s = "";
+    let first = true;
+    for (const x of this.iter$()) {
+      if (!first) s += sep;
+      first = false;
+      if (f != null) s += f(x);
+      else s += (x == null) ? "null" : ObjUtil.toStr(x);
+    }
+    return s;
+  }
+
+}
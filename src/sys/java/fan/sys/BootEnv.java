@@ -284,6 +284,10 @@ public class BootEnv
   {
     try
     {
+      // check the emit cache before we emit
+      Class[] cached = pod.classLoader.loadCached(new String[] { "fan." + pod.name() + ".$Pod" });
+      if (cached != null) return cached[0];
+
       FPodEmit emit = FPodEmit.emit(pod.fpod);
       return pod.classLoader.loadFan(emit.className.replace('/', '.'), emit.classFile);
     }
@@ -298,6 +302,12 @@ public class BootEnv
   {
     try
     {
+      // check the emit cache before we emit
+      String name = "fan." + t.pod().name() + "." + t.name();
+      String[] names = t.isMixin() ? new String[] { name, name + "$" } : new String[] { name };
+      Class[] cached = t.pod().classLoader.loadCached(names);
+      if (cached != null) return cached;
+
       FTypeEmit[] emitted = FTypeEmit.emit(t, t.ftype);
       Class[] classes = new Class[emitted.length];
       for (int i=0; i<emitted.length; ++i)
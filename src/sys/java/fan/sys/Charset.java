@@ -74,6 +74,48 @@ public class Charset
 
   static class Utf8Encoder extends Encoder
   {
+    public int maxBytesPerChar() { return 3; }
+
+    public int encodeChars(String s, int off, int end, byte[] bytes, int pos)
+    {
+      int i = off;
+      while (i < end)
+      {
+        int c = s.charAt(i++);
+
+        // ASCII is by far the common case
+        if (c <= 0x007F)
+        {
+          bytes[pos++] = (byte)c;
+          continue;
+        }
+
+        // surrogate pairs are handled the same as OutStream.writeChars
+        if (Character.isHighSurrogate((char)c) && i < end)
+          c = Character.toCodePoint((char)c, s.charAt(i++));
+
+        if (c <= 0x07FF)
+        {
+          bytes[pos++] = (byte)(0xC0 | ((c >>  6) & 0x1F));
+          bytes[pos++] = (byte)(0x80 | ((c >>  0) & 0x3F));
+        }
+        else if (c <= 0xFFFF)
+        {
+          bytes[pos++] = (byte)(0xE0 | ((c >> 12) & 0x0F));
+          bytes[pos++] = (byte)(0x80 | ((c >>  6) & 0x3F));
+          bytes[pos++] = (byte)(0x80 | ((c >>  0) & 0x3F));
+        }
+        else
+        {
+          bytes[pos++] = (byte)(0xF0 | ((c >> 18) & 0x07));
+          bytes[pos++] = (byte)(0x80 | ((c >> 12) & 0x3F));
+          bytes[pos++] = (byte)(0x80 | ((c >>  6) & 0x3F));
+          bytes[pos++] = (byte)(0x80 | ((c >>  0) & 0x3F));
+        }
+      }
+      return pos;
+    }
+
     public void encode(int c, OutStream out)
     {
       if (c <= 0x007F)
@@ -132,6 +174,8 @@ public class Charset
 
   static class Utf8Decoder extends Decoder
   {
+    public boolean isAsciiCompatible() { return true; }
+
     public int decode(InStream in)
     {
       int c = in.r();
@@ -275,6 +319,19 @@ public class Charset
 
   static class Iso8859Encoder extends Encoder
   {
+    public int maxBytesPerChar() { return 1; }
+
+    public int encodeChars(String s, int off, int end, byte[] bytes, int pos)
+    {
+      for (int i=off; i<end; ++i)
+      {
+        int c = s.charAt(i);
+        if (c > 0xFF) throw IOErr.make("Invalid ISO-8859-1 char");
+        bytes[pos++] = (byte)c;
+      }
+      return pos;
+    }
+
     public void encode(int c, OutStream out)
     {
       if (c > 0xFF) throw IOErr.make("Invalid ISO-8859-1 char");
@@ -289,6 +346,8 @@ public class Charset
 
   static class Iso8859Decoder extends Decoder
   {
+    public boolean isAsciiCompatible() { return true; }
+
     public int decode(InStream in)
     {
       return in.r();
@@ -337,6 +396,22 @@ public class Charset
   {
     public abstract void encode(int ch, OutStream out);  // -> w(int)
     public abstract void encode(int ch, InStream out);   // -> unread(int)
+
+    /**
+     * Max number of bytes encodeChars writes per char, or zero
+     * if this encoder does not support bulk encoding.
+     */
+    public int maxBytesPerChar() { return 0; }
+
+    /**
+     * Bulk encode the chars s[off, end) into bytes starting at pos
+     * which must have room for maxBytesPerChar bytes per char.  A
+     * surrogate pair must not be split across calls.  Return new pos.
+     */
+    public int encodeChars(String s, int off, int end, byte[] bytes, int pos)
+    {
+      throw UnsupportedErr.make(getClass().getName());
+    }
   }
 
   /**
@@ -427,6 +502,9 @@ public class Charset
   {
     /** Read the next code point from the InStream */
     public abstract int decode(InStream in);
+
+    /** Return if every byte below 0x80 decodes to the same ASCII char */
+    public boolean isAsciiCompatible() { return false; }
   }
 
   /**
@@ -0,0 +1,232 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+package fan.sys;
+
+import java.io.File;
+import java.nio.file.*;
+import java.security.*;
+import java.util.Enumeration;
+import java.util.zip.*;
+import fanx.util.*;
+
+/**
+ * EmitCache is an on-disk cache of the classfiles emitted from the fcode
+ * of one pod, so later launches of the VM can skip emission.  Classfiles
+ * are stored under "{workDir}/temp/emit/{pod}/{key}/" where key hashes
+ * the pod zip contents, the keys of the pods it depends on, and the sys
+ * runtime; so a stale classfile is never found after any of them change.
+ * The cache is enabled by the "emitCache" prop of etc/sys/config.props.
+ */
+final class EmitCache
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  /** Is the cache enabled for this VM */
+  static final boolean enabled = Sys.sysConfigBool("emitCache", false);
+
+  /**
+   * Make the cache for given pod or return null if disabled.
+   */
+  static EmitCache make(Pod pod)
+  {
+    if (!enabled || Sys.isJarDist || pod.isSys) return null;
+    return new EmitCache(pod);
+  }
+
+  private EmitCache(Pod pod) { this.pod = pod; }
+
+//////////////////////////////////////////////////////////////////////////
+// Access
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Read the cached classfile for given Java class name
+   * or return null if it has not been cached yet.
+   */
+  Box read(String className)
+  {
+    File dir = dir();
+    if (dir == null) return null;
+    try
+    {
+      File f = new File(dir, className + ".class");
+      if (!f.isFile()) return null;
+      byte[] buf = Files.readAllBytes(f.toPath());
+      return new Box(buf, buf.length);
+    }
+    catch (Exception e)
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Write an emitted classfile to the cache.  We write to a temp
+   * file and then rename so that other VMs sharing the work dir
+   * never see a partially written file.  Errors are ignored since
+   * the cache is only an optimization.
+   */
+  void write(String className, Box classfile)
+  {
+    File dir = dir();
+    if (dir == null) return;
+    try
+    {
+      dir.mkdirs();
+      Path temp = Files.createTempFile(dir.toPath(), className, ".tmp");
+      try
+      {
+        Files.write(temp, java.util.Arrays.copyOf(classfile.buf, classfile.len));
+        Files.move(temp, new File(dir, className + ".class").toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      }
+      finally
+      {
+        Files.deleteIfExists(temp);
+      }
+    }
+    catch (Exception e)
+    {
+      if (!warned) { warned = true; Log.get("sys").warn("Cannot write emit cache: " + dir, e); }
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Key
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Lazily compute the directory for this pod's classfiles,
+   * or return null if the pod cannot be cached.
+   */
+  private File dir()
+  {
+    if (dir == null)
+    {
+      String key = key();
+      if (key == null) return null;
+      File workDir = ((LocalFile)Env.cur().workDir()).file;
+      dir = new File(workDir, "temp" + File.separator + "emit" + File.separator + pod.name + File.separator + key);
+    }
+    return dir;
+  }
+
+  /**
+   * Lazily compute the hex key of this pod or return null if
+   * the pod or any of its dependencies cannot be cached.
+   */
+  String key()
+  {
+    if (key == null && !uncacheable)
+    {
+      key = computeKey();
+      uncacheable = key == null;
+    }
+    return key;
+  }
+
+  private String computeKey()
+  {
+    try
+    {
+      // memory only pods are not backed by a file
+      if (pod.fpod == null || pod.fpod.store == null) return null;
+      File file = pod.fpod.store.loadFile();
+      if (file == null) return null;
+
+      MessageDigest md = MessageDigest.getInstance("SHA-1");
+      update(md, runtime);
+      update(md, pod.name);
+
+      // the emitted code for a type depends on its supertypes and
+      // mixins which may come from the pods we depend on
+      for (int i=0; i<pod.dependPods.length; ++i)
+      {
+        Pod d = pod.dependPods[i];
+        if (d.isSys) continue;
+        EmitCache dc = d.classLoader.emitCache();
+        String dkey = dc == null ? null : dc.key();
+        if (dkey == null) return null;
+        update(md, d.name + " " + dkey);
+      }
+
+      // hash the name, size, and crc of each zip entry which is
+      // much cheaper than hashing the whole pod since we only
+      // need to read the zip's central directory
+      ZipFile zip = new ZipFile(file);
+      try
+      {
+        Enumeration en = zip.entries();
+        while (en.hasMoreElements())
+        {
+          ZipEntry entry = (ZipEntry)en.nextElement();
+          update(md, entry.getName() + " " + entry.getSize() + " " + entry.getCrc());
+        }
+      }
+      finally
+      {
+        zip.close();
+      }
+
+      return toHex(md.digest());
+    }
+    catch (Exception e)
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Identity of the sys runtime which emits the bytecode; we use the
+   * sys version, the debug flag which adds debug attributes, and the
+   * size and modified time of the jar or dir we were loaded from.
+   */
+  private static String initRuntime()
+  {
+    StringBuilder s = new StringBuilder();
+    s.append("format ").append(format).append(" debug ").append(Sys.debug);
+    try
+    {
+      s.append(" sys ").append(Sys.sysPod.version());
+      File f = new File(EmitCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+      s.append(' ').append(f.length()).append(' ').append(f.lastModified());
+    }
+    catch (Throwable e) {}
+    return s.toString();
+  }
+
+  private static void update(MessageDigest md, String s)
+  {
+    md.update(s.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+    md.update((byte)'\n');
+  }
+
+  private static String toHex(byte[] bytes)
+  {
+    StringBuilder s = new StringBuilder(bytes.length*2);
+    for (int i=0; i<bytes.length; ++i)
+    {
+      int b = bytes[i] & 0xff;
+      s.append(hex.charAt(b >> 4)).append(hex.charAt(b & 0xf));
+    }
+    return s.toString();
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  static final int format = 1;   // bump when emitted classfiles change
+  static final String hex = "0123456789abcdef";
+  static final String runtime = initRuntime();
+
+  private final Pod pod;
+  private String key;            // lazily computed hash
+  private boolean uncacheable;   // key cannot be computed
+  private File dir;              // lazily computed cache dir
+  private boolean warned;        // only warn once on write errors
+}
@@ -47,6 +47,50 @@ class FanClassLoader
 //////////////////////////////////////////////////////////////////////////
 
   public Class loadFan(String name, Box classfile)
+  {
+    EmitCache cache = emitCache();
+    if (cache != null) cache.write(name, classfile);
+    return loadPending(name, classfile);
+  }
+
+  /**
+   * Load a set of classes emitted together from the emit cache, or
+   * return null if any of them need to be emitted.  See EmitCache.
+   */
+  Class[] loadCached(String[] names)
+  {
+    EmitCache cache = emitCache();
+    if (cache == null) return null;
+
+    // read all the classfiles before we define any of them
+    Box[] classfiles = new Box[names.length];
+    for (int i=0; i<names.length; ++i)
+    {
+      classfiles[i] = cache.read(names[i]);
+      if (classfiles[i] == null) return null;
+    }
+
+    Class[] classes = new Class[names.length];
+    for (int i=0; i<names.length; ++i)
+      classes[i] = loadPending(names[i], classfiles[i]);
+    return classes;
+  }
+
+  /**
+   * Get the emit cache for this pod or null if disabled; we create
+   * it lazily since the sys pod's loader is created during boot.
+   */
+  EmitCache emitCache()
+  {
+    if (!emitCacheInit)
+    {
+      emitCache = EmitCache.make(pod);
+      emitCacheInit = true;
+    }
+    return emitCache;
+  }
+
+  private Class loadPending(String name, Box classfile)
   {
     try
     {
@@ -318,5 +362,7 @@ class FanClassLoader
   private PermissionCollection allPermissions;
   private CodeSource codeSource;
   private HashMap pendingClasses = new HashMap(); // name -> Box
+  private EmitCache emitCache;                    // lazily created
+  private boolean emitCacheInit;                  // has emitCache been created
 }
 
@@ -188,8 +188,14 @@ public class FanObj
 
   private static Object doTrap(Object self, String name, List args, Type type)
   {
-    Slot slot = type.slot(name, true);
+    return trapSlot(self, type.slot(name, true), name, args);
+  }
 
+  /**
+   * Invoke a dynamic call once the slot has been resolved
+   */
+  static Object trapSlot(Object self, Slot slot, String name, List args)
+  {
     if (slot instanceof Method)
     {
       Method m = (Method)slot;
@@ -385,6 +385,10 @@ public abstract class File
   public Buf open() { return open("rw"); }
   public abstract Buf open(String mode);
 
+  public Buf openBuffered() { return openBuffered("rw", 4096L); }
+  public Buf openBuffered(String mode) { return openBuffered(mode, 4096L); }
+  public Buf openBuffered(String mode, long bufSize) { return open(mode); }
+
   public Buf mmap() { return mmap("rw", 0L, null); }
   public Buf mmap(String mode) { return mmap(mode, 0L, null); }
   public Buf mmap(String mode, long pos) { return mmap(mode, pos, null); }
@@ -436,6 +440,11 @@ public abstract class File
     in(FanInt.Chunk).eachLine(f);
   }
 
+  public final Seq seqLines()
+  {
+    return Seq.makeLines(this);
+  }
+
   public final String readAllStr() { return readAllStr(true); }
   public final String readAllStr(boolean normalizeNewlines)
   {
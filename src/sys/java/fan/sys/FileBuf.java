@@ -9,10 +9,18 @@ package fan.sys;
 
 import java.io.*;
 import java.nio.*;
+import java.nio.channels.*;
 import java.security.*;
 
 /**
- * FileBuf returned from File.open
+ * FileBuf returned from File.open and File.openBuffered.  All I/O is done with positional
+ * reads and writes on the file's channel, so the buffer tracks its own
+ * position and size.  Single byte access goes through one page which is
+ * filled on a miss (read-ahead) and written back when the page moves,
+ * on sync, or on close (write-behind).  Bulk transfers at least as large
+ * as the page bypass it after flushing any dirty bytes.  An unbuffered
+ * FileBuf uses a one byte page which is written through on every write
+ * and refilled on every read, and asks the file for its size each time.
  */
 public class FileBuf
   extends Buf
@@ -22,12 +30,39 @@ public class FileBuf
 // Constructor
 //////////////////////////////////////////////////////////////////////////
 
-  FileBuf(File file, RandomAccessFile fp)
+  FileBuf(File file, RandomAccessFile fp, String mode, long bufSize)
+    throws IOException
+  {
+    this(file, fp, fp.getChannel(), mode, bufSize);
+  }
+
+  /**
+   * Read only view of len bytes of a channel from its current
+   * position which is used to pipe a file input stream in regions.
+   */
+  FileBuf(FileChannel chan, long len)
+    throws IOException
   {
-    this.file = file;
-    this.fp   = fp;
-    this.out  = new FileBufOutStream();
-    this.in   = new FileBufInStream();
+    this(null, null, chan, "r", 0L);
+    this.pos   = chan.position();
+    this.limit = pos + len;
+    this.size  = Math.min(size, limit);
+  }
+
+  private FileBuf(File file, RandomAccessFile fp, FileChannel chan, String mode, long bufSize)
+    throws IOException
+  {
+    boolean buffered = bufSize > 0;
+    this.file     = file;
+    this.fp       = fp;
+    this.chan     = chan;
+    this.readOnly = mode.equals("r");
+    this.buffered = buffered;
+    this.writeThrough = !buffered || mode.equals("rws") || mode.equals("rwd");
+    this.page     = new byte[buffered ? (int)Math.min(bufSize, MAX_PAGE) : 1];
+    this.size     = chan.size();
+    this.out      = new FileBufOutStream();
+    this.in       = new FileBufInStream();
   }
 
 //////////////////////////////////////////////////////////////////////////
@@ -36,6 +71,195 @@ public class FileBuf
 
   public Type typeof() { return Sys.FileBufType; }
 
+//////////////////////////////////////////////////////////////////////////
+// Page
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Read byte at given position or -1 if at end of file.
+   */
+  private int readByte(long p)
+    throws IOException
+  {
+    if (p >= fileSize()) return -1;
+    long off = p - pageStart;
+    if (!buffered || off < 0 || off >= pageLen)
+    {
+      fill(p);
+      off = p - pageStart;
+      if (off >= pageLen) return -1;
+    }
+    return page[(int)off] & 0xff;
+  }
+
+  /**
+   * Write byte at given position.
+   */
+  private void writeByte(long p, int v)
+    throws IOException
+  {
+    int off = writeOffset(p);
+    page[off] = (byte)v;
+    dirty(off, off+1);
+  }
+
+  /**
+   * Get the offset into the page to write position p, moving the page
+   * to cover p if needed.  If p is past the valid bytes in the page then
+   * the gap is past the end of file, so it is zeroed and marked dirty.
+   * This holds because a page only becomes valid by a fill, which stops
+   * short of the page size only at end of file.
+   */
+  private int writeOffset(long p)
+    throws IOException
+  {
+    if (readOnly) throw IOErr.make("FileBuf is read only");
+    long off = p - pageStart;
+    if (off < 0 || off >= page.length || off > pageLen)
+    {
+      if (off < 0 || off >= page.length) fill(p);
+      off = p - pageStart;
+      if (off > pageLen)
+      {
+        int gap = pageLen;
+        java.util.Arrays.fill(page, gap, (int)off, (byte)0);
+        dirty(gap, (int)off);
+      }
+    }
+    return (int)off;
+  }
+
+  /**
+   * Mark page bytes [lo, hi) as modified.
+   */
+  private void dirty(int lo, int hi)
+    throws IOException
+  {
+    if (lo < dirtyLo) dirtyLo = lo;
+    if (hi > dirtyHi) dirtyHi = hi;
+    if (hi > pageLen) pageLen = hi;
+    long end = pageStart + hi;
+    if (end > size) size = end;
+    if (writeThrough) flushPage();
+  }
+
+  /**
+   * Move the page to the aligned block containing p and read ahead.
+   */
+  private void fill(long p)
+    throws IOException
+  {
+    flushPage();
+    pageStart = NO_PAGE;
+    long start = p - (p % page.length);
+    ByteBuffer bb = ByteBuffer.wrap(page);
+    while (bb.hasRemaining())
+    {
+      int n = chan.read(bb, start + bb.position());
+      if (n < 0) break;
+    }
+    pageStart = start;
+    pageLen = bb.position();
+  }
+
+  /**
+   * Write back modified bytes in the page.
+   */
+  private void flushPage()
+    throws IOException
+  {
+    if (dirtyHi <= dirtyLo) return;
+    ByteBuffer bb = ByteBuffer.wrap(page, dirtyLo, dirtyHi - dirtyLo);
+    long at = pageStart + dirtyLo;
+    while (bb.hasRemaining()) at += chan.write(bb, at);
+    dirtyLo = Integer.MAX_VALUE;
+    dirtyHi = 0;
+  }
+
+  /**
+   * Drop the page if it overlaps bytes [p, p+len) written directly to
+   * the channel.  The page must have been flushed.
+   */
+  private void invalidate(long p, long len)
+  {
+    if (p < pageStart + page.length && p + len > pageStart) pageStart = NO_PAGE;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Bulk
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Read up to len bytes at position p into dst and return number
+   * of bytes read which is less than len only at end of file.
+   */
+  private int readAt(long p, byte[] dst, int off, int len)
+    throws IOException
+  {
+    len = (int)Math.max(0L, Math.min(len, fileSize() - p));
+
+    // large reads go directly to the channel
+    if (len >= page.length)
+    {
+      flushPage();
+      ByteBuffer bb = ByteBuffer.wrap(dst, off, len);
+      while (bb.hasRemaining())
+        if (chan.read(bb, p + (bb.position() - off)) < 0) break;
+      return bb.position() - off;
+    }
+
+    // small reads copy out of the page
+    int total = 0;
+    while (total < len)
+    {
+      long pp = p + total;
+      long poff = pp - pageStart;
+      if (poff < 0 || poff >= pageLen)
+      {
+        fill(pp);
+        poff = pp - pageStart;
+        if (poff >= pageLen) break;
+      }
+      int n = Math.min(len - total, pageLen - (int)poff);
+      System.arraycopy(page, (int)poff, dst, off + total, n);
+      total += n;
+    }
+    return total;
+  }
+
+  /**
+   * Write len bytes from src at position p.
+   */
+  private void writeAt(long p, byte[] src, int off, int len)
+    throws IOException
+  {
+    if (len <= 0) return;
+
+    // large writes go directly to the channel
+    if (len >= page.length)
+    {
+      if (readOnly) throw IOErr.make("FileBuf is read only");
+      flushPage();
+      ByteBuffer bb = ByteBuffer.wrap(src, off, len);
+      long at = p;
+      while (bb.hasRemaining()) at += chan.write(bb, at);
+      invalidate(p, len);
+      if (p + len > size) size = p + len;
+      return;
+    }
+
+    // small writes copy into the page
+    int total = 0;
+    while (total < len)
+    {
+      int poff = writeOffset(p + total);
+      int n = Math.min(len - total, page.length - poff);
+      System.arraycopy(src, off + total, page, poff, n);
+      total += n;
+      dirty(poff, poff + n);
+    }
+  }
+
 //////////////////////////////////////////////////////////////////////////
 // Buf Support
 //////////////////////////////////////////////////////////////////////////
@@ -53,7 +277,7 @@ public class FileBuf
   {
     try
     {
-      return fp.length();
+      return fileSize();
     }
     catch (IOException e)
     {
@@ -61,11 +285,26 @@ public class FileBuf
     }
   }
 
+  /**
+   * Get the logical size.  Unbuffered we ask the file every time
+   * since another writer may have changed its length.
+   */
+  private long fileSize()
+    throws IOException
+  {
+    if (!buffered) size = Math.min(chan.size(), limit);
+    return size;
+  }
+
   public final void size(long x)
   {
+    if (readOnly) throw IOErr.make("FileBuf is read only");
     try
     {
+      flushPage();
       fp.setLength(x);
+      size = x;
+      pageStart = NO_PAGE;
     }
     catch (IOException e)
     {
@@ -75,37 +314,19 @@ public class FileBuf
 
   public final long pos()
   {
-    try
-    {
-      return fp.getFilePointer();
-    }
-    catch (IOException e)
-    {
-      throw IOErr.make(e);
-    }
+    return pos;
   }
 
   final void pos(long x)
   {
-    try
-    {
-      fp.seek(x);
-    }
-    catch (IOException e)
-    {
-      throw IOErr.make(e);
-    }
+    pos = x;
   }
 
   public final int getByte(long pos)
   {
     try
     {
-      long oldPos = fp.getFilePointer();
-      fp.seek(pos);
-      int b = fp.read();
-      fp.seek(oldPos);
-      return b;
+      return readByte(pos);
     }
     catch (IOException e)
     {
@@ -117,10 +338,7 @@ public class FileBuf
   {
     try
     {
-      long oldPos = fp.getFilePointer();
-      fp.seek(pos);
-      fp.write(x);
-      fp.seek(oldPos);
+      writeByte(pos, x);
     }
     catch (IOException e)
     {
@@ -132,8 +350,7 @@ public class FileBuf
   {
     try
     {
-      fp.seek(pos);
-      fp.read(dst, off, len);
+      readAt(pos, dst, off, len);
     }
     catch (IOException e)
     {
@@ -145,7 +362,7 @@ public class FileBuf
   {
     try
     {
-      fp.read(dst, dstPos, len);
+      pos += readAt(pos, dst, dstPos, len);
     }
     catch (IOException e)
     {
@@ -160,8 +377,10 @@ public class FileBuf
     long total = 0;
     while (total < len)
     {
-      int n = fp.read(temp, 0, (int)Math.min(temp.length, len-total));
+      int n = readAt(pos, temp, 0, (int)Math.min(temp.length, len-total));
+      if (n <= 0) break;
       dst.write(temp, 0, n);
+      pos += n;
       total += n;
     }
   }
@@ -173,8 +392,10 @@ public class FileBuf
     long total = 0;
     while (total < len)
     {
-      int n = fp.read(temp, 0, (int)Math.min(temp.length, len-total));
+      int n = readAt(pos, temp, 0, (int)Math.min(temp.length, len-total));
+      if (n <= 0) break;
       dst.write(temp, 0, n);
+      pos += n;
       total += n;
     }
   }
@@ -183,13 +404,22 @@ public class FileBuf
   {
     try
     {
-      byte[] temp = temp();
-      int total = 0;
-      while (total < len)
+      // read from the channel straight into the destination
+      flushPage();
+      int oldLimit = dst.limit();
+      dst.limit(dst.position() + len);
+      try
       {
-        int n = fp.read(temp, 0, Math.min(temp.length, len-total));
-        dst.put(temp, 0, n);
-        total += n;
+        while (dst.hasRemaining())
+        {
+          int n = chan.read(dst, pos);
+          if (n < 0) break;
+          pos += n;
+        }
+      }
+      finally
+      {
+        dst.limit(oldLimit);
       }
     }
     catch (IOException e)
@@ -198,11 +428,30 @@ public class FileBuf
     }
   }
 
+  /**
+   * Transfer len bytes to the channel with FileChannel.transferTo
+   * which lets the OS copy directly from the file to a socket.
+   */
+  final void transferTo(WritableByteChannel dst, long len)
+    throws IOException
+  {
+    flushPage();
+    long total = 0;
+    while (total < len)
+    {
+      long n = chan.transferTo(pos, len-total, dst);
+      if (n <= 0) throw IOErr.make("Unexpected end of file");
+      pos += n;
+      total += n;
+    }
+  }
+
   public final void pipeFrom(byte[] src, int srcPos, int len)
   {
     try
     {
-      fp.write(src, srcPos, len);
+      writeAt(pos, src, srcPos, len);
+      pos += len;
     }
     catch (IOException e)
     {
@@ -219,7 +468,8 @@ public class FileBuf
     {
       int n = src.read(temp, 0, (int)Math.min(temp.length, len-total));
       if (n < 0) return total == 0 ? -1 : total;
-      fp.write(temp, 0, n);
+      writeAt(pos, temp, 0, n);
+      pos += n;
       total += n;
     }
     return total;
@@ -234,7 +484,8 @@ public class FileBuf
     {
       int n = src.read(temp, 0, (int)Math.min(temp.length, len-total));
       if (n < 0) return total == 0 ? -1 : total;
-      fp.write(temp, 0, n);
+      writeAt(pos, temp, 0, n);
+      pos += n;
       total += n;
     }
     return total;
@@ -244,16 +495,23 @@ public class FileBuf
   {
     try
     {
-      byte[] temp = temp();
-      int total = 0;
-      while (total < len)
+      // write from the source straight to the channel
+      if (readOnly) throw IOErr.make("FileBuf is read only");
+      flushPage();
+      int oldLimit = src.limit();
+      src.limit(src.position() + len);
+      long start = pos;
+      try
       {
-        int n = Math.min(temp.length, len-total);
-        src.get(temp, 0, n);
-        fp.write(temp, 0, n);
-        total += n;
+        while (src.hasRemaining()) pos += chan.write(src, pos);
       }
-      return total;
+      finally
+      {
+        src.limit(oldLimit);
+      }
+      invalidate(start, len);
+      if (pos > size) size = pos;
+      return len;
     }
     catch (IOException e)
     {
@@ -269,7 +527,8 @@ public class FileBuf
   {
     try
     {
-      fp.getFD().sync();
+      flushPage();
+      if (fp != null) fp.getFD().sync();
       return this;
     }
     catch (IOException e)
@@ -280,32 +539,40 @@ public class FileBuf
 
   public final boolean close()
   {
+    boolean ok = true;
     try
     {
-      fp.close();
-      return true;
+      flushPage();
     }
     catch (Exception e)
     {
-      return false;
+      ok = false;
     }
+    try
+    {
+      if (fp != null) fp.close();
+    }
+    catch (Exception e)
+    {
+      ok = false;
+    }
+    return ok;
   }
 
   public final String toHex()
   {
     try
     {
-      long oldPos = pos();
       int size = (int)size();
       byte[] temp = temp();
       char[] hexChars = Buf.hexChars;
       StringBuilder s = new StringBuilder(size*2);
 
-      pos(0);
       int total = 0;
       while (total < size)
       {
-        int n = fp.read(temp, 0, Math.min(temp.length, size-total));
+        int n = readAt(total, temp, 0, Math.min(temp.length, size-total));
+        if (n <= 0) break;
         for (int i=0; i<n; ++i)
         {
           int b = temp[i] & 0xFF;
@@ -314,7 +581,6 @@ public class FileBuf
         total += n;
       }
 
-      pos(oldPos);
       return s.toString();
     }
     catch (IOException e)
@@ -327,21 +593,19 @@ public class FileBuf
   {
     try
     {
-      long oldPos = pos();
       long size = size();
       byte[] temp = temp();
       MessageDigest md = MessageDigest.getInstance(algorithm);
 
-      pos(0);
       long total = 0;
       while (total < size)
       {
-        int n = fp.read(temp, 0, (int)Math.min(temp.length, size-total));
+        int n = readAt(total, temp, 0, (int)Math.min(temp.length, size-total));
+        if (n <= 0) break;
         md.update(temp, 0, n);
         total += n;
       }
 
-      pos(oldPos);
       return new MemBuf(md.digest());
     }
     catch (IOException e)
@@ -365,7 +629,7 @@ public class FileBuf
   final byte[] temp()
   {
     byte[] temp = this.temp;
-    if (temp == null) temp = this.temp = new byte[1024];
+    if (temp == null) temp = this.temp = new byte[8192];
     return temp;
   }
 
@@ -380,7 +644,8 @@ public class FileBuf
     {
       try
       {
-        fp.write(v);
+        writeByte(pos, v);
+        pos++;
         return this;
       }
       catch (IOException e)
@@ -393,7 +658,16 @@ public class FileBuf
     {
       try
       {
-        other.pipeTo(fp, n);
+        // pull through temp so other never writes behind our page
+        byte[] temp = temp();
+        while (n > 0)
+        {
+          int len = (int)Math.min(temp.length, n);
+          other.pipeTo(temp, 0, len);
+          writeAt(pos, temp, 0, len);
+          pos += len;
+          n -= len;
+        }
         return this;
       }
       catch (IOException e)
@@ -414,6 +688,32 @@ public class FileBuf
       return this;
     }
 
+    public OutStream writeChars(String s, int off, int len)
+    {
+      // bulk encode into a chunk so we make one write call per chunk
+      Charset.Encoder enc = charsetEncoder;
+      int max = enc.maxBytesPerChar();
+      if (max == 0) return super.writeChars(s, off, len);
+      try
+      {
+        byte[] bytes = new byte[Math.min(len, charsChunk) * max + 1];
+        int end = off + len;
+        while (off < end)
+        {
+          int chunkEnd = chunkEnd(s, off, end, charsChunk);
+          int n = enc.encodeChars(s, off, chunkEnd, bytes, 0);
+          writeAt(pos, bytes, 0, n);
+          pos += n;
+          off = chunkEnd;
+        }
+        return this;
+      }
+      catch (IOException e)
+      {
+        throw IOErr.make(e);
+      }
+    }
+
     public OutStream flush()
     {
       FileBuf.this.flush();
@@ -432,7 +732,9 @@ public class FileBuf
     {
       try
       {
-        return fp.read();
+        int b = readByte(pos);
+        if (b >= 0) pos++;
+        return b;
       }
       catch (IOException e)
       {
@@ -444,9 +746,19 @@ public class FileBuf
     {
       try
       {
-        long read = other.pipeFrom(fp, n);
-        if (read < 0) return null;
-        return Long.valueOf(read);
+        // push through temp so other never reads behind our page
+        byte[] temp = temp();
+        long total = 0;
+        while (total < n)
+        {
+          int len = readAt(pos, temp, 0, (int)Math.min(temp.length, n-total));
+          if (len <= 0) break;
+          other.pipeFrom(temp, 0, len);
+          pos += len;
+          total += len;
+        }
+        if (total == 0 && n > 0) return null;
+        return Long.valueOf(total);
       }
       catch (IOException e)
       {
@@ -457,12 +769,11 @@ public class FileBuf
     public InStream unread(long n) { return unread((int)n); }
     public InStream unread(int n)
     {
+      if (pos <= 0) throw IOErr.make("Cannot unread at start of file");
       try
       {
-        long pos = pos();
-        fp.seek(pos-1);
-        fp.write(n);
-        fp.seek(pos-1);
+        writeByte(pos-1, n);
+        pos--;
         return this;
       }
       catch (IOException e)
@@ -480,9 +791,7 @@ public class FileBuf
     {
       try
       {
-        long pos = pos();
-        int n = fp.read();
-        pos(pos);
+        int n = readByte(pos);
         return n < 0 ? null : FanInt.pos[n];
       }
       catch (IOException e)
@@ -490,16 +799,66 @@ public class FileBuf
         throw IOErr.make(e);
       }
     }
+
+    public long skip(long n)
+    {
+      long left = size() - pos;
+      if (n > left) n = left;
+      if (n <= 0) return 0;
+      pos += n;
+      return n;
+    }
+
+    int readAscii(StringBuilder sb, int max, boolean[] stops)
+    {
+      try
+      {
+        if (pos >= fileSize()) return 0;
+        long off = pos - pageStart;
+        if (!buffered || off < 0 || off >= pageLen)
+        {
+          fill(pos);
+          off = pos - pageStart;
+          if (off >= pageLen) return 0;
+        }
+
+        // scan what is left in the page
+        int start = (int)off;
+        int end = (int)Math.min(pageLen, Math.min(start + (long)max, size - pageStart));
+        int n = appendAscii(page, start, end, sb, stops) - start;
+        pos += n;
+        return n;
+      }
+      catch (IOException e)
+      {
+        throw IOErr.make(e);
+      }
+    }
   }
 
 //////////////////////////////////////////////////////////////////////////
 // Fields
 //////////////////////////////////////////////////////////////////////////
 
+  static final int MAX_PAGE = 1 << 24;
+  static final long NO_PAGE = Long.MIN_VALUE / 2;
+
   private File file;
-  private RandomAccessFile fp;
+  private RandomAccessFile fp;          // null for a pipe region
+  private FileChannel chan;              // positional I/O on the file
+  private final boolean readOnly;        // opened with "r"
+  private final boolean buffered;        // page caches reads and size
+  private final boolean writeThrough;    // unbuffered or rws/rwd mode
+  private final byte[] page;             // read-ahead/write-behind page
+  private long pageStart = NO_PAGE;      // file offset of page[0]
+  private int pageLen;                   // valid bytes in page
+  private int dirtyLo = Integer.MAX_VALUE; // first modified byte in page
+  private int dirtyHi;                   // end of modified bytes in page
+  private long size;                     // logical file size if buffered
+  private long limit = Long.MAX_VALUE;   // end of a pipe region
+  private long pos;                      // current position
   private byte[] temp;
   private FileBufInStream in;
   private FileBufOutStream out;
 
-}
\ No newline at end of file
+}
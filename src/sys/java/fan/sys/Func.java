@@ -152,6 +152,14 @@ public abstract class Func
     public final Object call(Object a, Object b, Object c, Object d, Object e, Object f, Object g) { return call(a); }
     public final Object call(Object a, Object b, Object c, Object d, Object e, Object f, Object g, Object h) { return call(a); }
 
+    /**
+     * Call with an unboxed Int or Float.  The emitter overrides these
+     * in closures whose parameter is a non-nullable Int or Float so
+     * that List can iterate its unboxed items without boxing them.
+     */
+    public Object callLong(long a) { return call(Long.valueOf(a)); }
+    public Object callDouble(double a) { return call(Double.valueOf(a)); }
+
     public void enterCtor(Object o) { this.inCtor = o; }
     public void exitCtor() { this.inCtor = null; }
     public void checkInCtor(Object it)
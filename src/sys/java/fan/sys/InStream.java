@@ -101,6 +101,68 @@ public class InStream
     return unreadChar((long)b);
   }
 
+  /**
+   * Append a run of ASCII chars to sb directly from the underlying bytes
+   * bypassing the charset decoder.  At most max chars are appended and
+   * the run ends before a non-ASCII byte, a byte flagged in stops, or the
+   * end of the currently buffered bytes.  Return the number of chars
+   * appended which may be zero even if more chars are available, in which
+   * case callers must fall back to rChar.  Streams which read from an
+   * array of bytes override this method.
+   */
+  int readAscii(StringBuilder sb, int max, boolean[] stops)
+  {
+    return 0;
+  }
+
+  /**
+   * Call readAscii if our charset is ASCII compatible.
+   */
+  private int readAsciiRun(StringBuilder sb, int max, boolean[] stops)
+  {
+    if (max <= 0 || !charsetDecoder.isAsciiCompatible()) return 0;
+    return readAscii(sb, max, stops);
+  }
+
+  /**
+   * Append bytes[off, end) to sb until a non-ASCII or stop
+   * byte is found.  Return the index of the first byte not appended.
+   */
+  static int appendAscii(byte[] bytes, int off, int end, StringBuilder sb, boolean[] stops)
+  {
+    int i = off;
+    if (stops == null)
+    {
+      for (; i<end; ++i)
+      {
+        int b = bytes[i];
+        if (b < 0) break;
+        sb.append((char)b);
+      }
+    }
+    else
+    {
+      for (; i<end; ++i)
+      {
+        int b = bytes[i];
+        if (b < 0 || stops[b]) break;
+        sb.append((char)b);
+      }
+    }
+    return i;
+  }
+
+  private static boolean[] asciiStops(String chars)
+  {
+    boolean[] stops = new boolean[128];
+    for (int i=0; i<chars.length(); ++i) stops[chars.charAt(i)] = true;
+    return stops;
+  }
+
+  static final boolean[] lineStops  = asciiStops("\n\r");
+  static final boolean[] crStops    = asciiStops("\r");
+  static final boolean[] spaceStops = asciiStops(" \t\n\r\f");
+
 //////////////////////////////////////////////////////////////////////////
 // InStream
 //////////////////////////////////////////////////////////////////////////
@@ -457,6 +519,10 @@ public class InStream
     StringBuilder buf = new StringBuilder(256);
     for (int i=(int)n; i>0; --i)
     {
+      // bulk read any ASCII run
+      i -= readAsciiRun(buf, i, null);
+      if (i <= 0) break;
+
       int ch = rChar();
       if (ch < 0) throw IOErr.make("Unexpected end of stream");
       buf.append((char)ch);
@@ -495,8 +561,9 @@ public class InStream
         break;
       }
 
-      // append to working buffer
+      // append to working buffer along with any ASCII run up to newline
       buf.appendCodePoint(c);
+      readAsciiRun(buf, maxChars - buf.length(), lineStops);
       if (buf.length() >= maxChars) break;
 
       // read next char
@@ -534,8 +601,10 @@ public class InStream
         break;
       }
 
-      // append to working buffer
+      // append to working buffer along with any ASCII run up to
+      // whitespace if using the default terminator
       buf.appendCodePoint(c);
+      if (f == null) readAsciiRun(buf, maxChars - buf.length(), spaceStops);
       if (buf.length() >= maxChars) break;
 
       // read next char
@@ -603,6 +672,11 @@ public class InStream
     }
   }
 
+  public Seq seqLines()
+  {
+    return Seq.makeLines(this);
+  }
+
   public String readAllStr() { return readAllStr(true); }
   public String readAllStr(final boolean normalizeNewlines)
   {
@@ -610,10 +684,15 @@ public class InStream
     {
       final StringBuilder sb = new StringBuilder(4096);
 
-      // read characters
+      // read characters, bulk reading any ASCII runs; when normalizing
+      // newlines runs stop at CR and never start right after one so
+      // that we handle CR LF below
       int last = -1;
+      boolean[] stops = normalizeNewlines ? crStops : null;
       while (true)
       {
+        if (last != '\r' && readAsciiRun(sb, Integer.MAX_VALUE, stops) > 0) last = -1;
+
         final int c = rChar();
         if (c < 0) break;
 
@@ -0,0 +1,475 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+package fan.sys;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * IntHashMap is the backing store for maps keyed by Int.  Keys are
+ * stored unboxed in a dense long[] parallel to a dense Object[] of
+ * values in insertion order, and an open addressing int[] index maps
+ * hashed keys to their dense position.  There is no per entry object,
+ * so an entry costs about 20 bytes instead of the 50+ bytes of a
+ * HashMap node and boxed Long.  Since the dense arrays are kept in
+ * insertion order, the same class implements ordered maps.
+ *
+ * We subclass HashMap only so that Map.toJava() keeps working; none of
+ * HashMap's own storage is used, so every HashMap method is overridden.
+ */
+final class IntHashMap extends HashMap
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Constructor
+//////////////////////////////////////////////////////////////////////////
+
+  IntHashMap(boolean ordered) { this(ordered, 0); }
+
+  IntHashMap(boolean ordered, int capacity)
+  {
+    this.ordered = ordered;
+    alloc(Math.max(capacity, 8));
+  }
+
+  private void alloc(int capacity)
+  {
+    this.keys  = new long[capacity];
+    this.vals  = new Object[capacity];
+    int n = 8;
+    while (n < capacity + capacity/3 && n < MAX_INDEX) n <<= 1;
+    this.index = new int[n];
+    this.shift = 64 - Integer.numberOfTrailingZeros(n);
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Table
+//////////////////////////////////////////////////////////////////////////
+
+  /** Fibonacci hash of key to a slot in the index */
+  private int slot(long key)
+  {
+    return (int)((key * 0x9E3779B97F4A7C15L) >>> shift);
+  }
+
+  /** Return dense position of key or -1 */
+  private int find(long key)
+  {
+    int[] index = this.index;
+    int mask = index.length - 1;
+    for (int i = slot(key); ; i = (i+1) & mask)
+    {
+      int p = index[i] - 1;
+      if (p < 0) return -1;
+      if (keys[p] == key && vals[p] != REMOVED) return p;
+    }
+  }
+
+  private int find(Object key)
+  {
+    if (!(key instanceof Long)) return -1;
+    return find(((Long)key).longValue());
+  }
+
+  /** Append new key/val to the dense arrays and index it */
+  private void append(long key, Object val)
+  {
+    if (count == keys.length) rehash();
+    int p = count++;
+    keys[p] = key;
+    vals[p] = val;
+    link(key, p);
+    size++;
+  }
+
+  private void link(long key, int p)
+  {
+    int[] index = this.index;
+    int mask = index.length - 1;
+    int i = slot(key);
+    while (index[i] != 0) i = (i+1) & mask;
+    index[i] = p + 1;
+  }
+
+  /**
+   * Rebuild when the dense arrays are full: compact away removed
+   * entries and double the capacity if still more than half full.
+   */
+  private void rehash()
+  {
+    long[] oldKeys = keys;
+    Object[] oldVals = vals;
+    int oldCount = count;
+    int cap = oldKeys.length;
+    if (size > cap/2) cap = Math.min(cap*2, MAX_INDEX/4*3);
+    alloc(cap);
+    int n = 0;
+    for (int p=0; p<oldCount; ++p)
+    {
+      Object v = oldVals[p];
+      if (v == REMOVED) continue;
+      keys[n] = oldKeys[p];
+      vals[n] = v;
+      link(oldKeys[p], n);
+      ++n;
+    }
+    count = n;
+  }
+
+  /** Mark the entry at dense position as removed, return old value */
+  private Object removeAt(int p)
+  {
+    Object old = vals[p];
+    vals[p] = REMOVED;
+    size--;
+    if (size == 0) clear();
+    return old;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Identity
+//////////////////////////////////////////////////////////////////////////
+
+  public int size() { return size; }
+
+  public boolean isEmpty() { return size == 0; }
+
+  public Object clone()
+  {
+    IntHashMap dup = new IntHashMap(ordered, 0);
+    dup.keys  = keys.clone();
+    dup.vals  = vals.clone();
+    dup.index = index.clone();
+    dup.shift = shift;
+    dup.count = count;
+    dup.size  = size;
+    return dup;
+  }
+
+  public int hashCode()
+  {
+    int hash = 0;
+    for (int p=0; p<count; ++p)
+    {
+      Object v = vals[p];
+      if (v == REMOVED) continue;
+      hash += Long.hashCode(keys[p]) ^ (v == null ? 0 : v.hashCode());
+    }
+    return hash;
+  }
+
+  public boolean equals(Object obj)
+  {
+    if (obj == this) return true;
+    if (!(obj instanceof java.util.Map)) return false;
+    java.util.Map that = (java.util.Map)obj;
+    if (size != that.size()) return false;
+    for (int p=0; p<count; ++p)
+    {
+      Object v = vals[p];
+      if (v == REMOVED) continue;
+      Long k = Long.valueOf(keys[p]);
+      if (v == null)
+      {
+        if (that.get(k) != null || !that.containsKey(k)) return false;
+      }
+      else
+      {
+        if (!v.equals(that.get(k))) return false;
+      }
+    }
+    return true;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Access
+//////////////////////////////////////////////////////////////////////////
+
+  public Object get(Object key)
+  {
+    int p = find(key);
+    return p < 0 ? null : vals[p];
+  }
+
+  public Object getOrDefault(Object key, Object def)
+  {
+    int p = find(key);
+    return p < 0 ? def : vals[p];
+  }
+
+  public boolean containsKey(Object key)
+  {
+    return find(key) >= 0;
+  }
+
+  public boolean containsValue(Object val)
+  {
+    for (int p=0; p<count; ++p)
+    {
+      Object v = vals[p];
+      if (v == REMOVED) continue;
+      if (val == null ? v == null : val.equals(v)) return true;
+    }
+    return false;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Modification
+//////////////////////////////////////////////////////////////////////////
+
+  public Object put(Object key, Object val)
+  {
+    long k = ((Long)key).longValue();
+    int p = find(k);
+    if (p >= 0)
+    {
+      Object old = vals[p];
+      vals[p] = val;
+      return old;
+    }
+    append(k, val);
+    return null;
+  }
+
+  public Object putIfAbsent(Object key, Object val)
+  {
+    int p = find(key);
+    if (p >= 0 && vals[p] != null) return vals[p];
+    return put(key, val);
+  }
+
+  public void putAll(java.util.Map m)
+  {
+    Iterator it = m.entrySet().iterator();
+    while (it.hasNext())
+    {
+      Entry e = (Entry)it.next();
+      put(e.getKey(), e.getValue());
+    }
+  }
+
+  public Object remove(Object key)
+  {
+    int p = find(key);
+    return p < 0 ? null : removeAt(p);
+  }
+
+  public boolean remove(Object key, Object val)
+  {
+    int p = find(key);
+    if (p < 0 || !(val == null ? vals[p] == null : val.equals(vals[p]))) return false;
+    removeAt(p);
+    return true;
+  }
+
+  public boolean replace(Object key, Object oldVal, Object newVal)
+  {
+    int p = find(key);
+    if (p < 0 || !(oldVal == null ? vals[p] == null : oldVal.equals(vals[p]))) return false;
+    vals[p] = newVal;
+    return true;
+  }
+
+  public Object replace(Object key, Object val)
+  {
+    int p = find(key);
+    if (p < 0) return null;
+    Object old = vals[p];
+    vals[p] = val;
+    return old;
+  }
+
+  public void clear()
+  {
+    if (count == 0) return;
+    Arrays.fill(index, 0);
+    Arrays.fill(vals, 0, count, null);
+    count = 0;
+    size = 0;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Functional
+//////////////////////////////////////////////////////////////////////////
+
+  public Object computeIfAbsent(Object key, Function f)
+  {
+    int p = find(key);
+    if (p >= 0 && vals[p] != null) return vals[p];
+    Object val = f.apply(key);
+    if (val != null) put(key, val);
+    return val;
+  }
+
+  public Object computeIfPresent(Object key, BiFunction f)
+  {
+    int p = find(key);
+    if (p < 0 || vals[p] == null) return null;
+    Object val = f.apply(key, vals[p]);
+    if (val == null) remove(key);
+    else put(key, val);
+    return val;
+  }
+
+  public Object compute(Object key, BiFunction f)
+  {
+    Object old = get(key);
+    Object val = f.apply(key, old);
+    if (val == null)
+    {
+      if (old != null || containsKey(key)) remove(key);
+    }
+    else put(key, val);
+    return val;
+  }
+
+  public Object merge(Object key, Object val, BiFunction f)
+  {
+    Object old = get(key);
+    Object r = old == null ? val : f.apply(old, val);
+    if (r == null) remove(key);
+    else put(key, r);
+    return r;
+  }
+
+  public void forEach(BiConsumer f)
+  {
+    for (int p=0; p<count; ++p)
+    {
+      Object v = vals[p];
+      if (v != REMOVED) f.accept(Long.valueOf(keys[p]), v);
+    }
+  }
+
+  public void replaceAll(BiFunction f)
+  {
+    for (int p=0; p<count; ++p)
+    {
+      Object v = vals[p];
+      if (v != REMOVED) vals[p] = f.apply(Long.valueOf(keys[p]), v);
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Iteration
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Iterate the pairs reusing a single Entry, used by sys::Map
+   */
+  Iterator pairs() { return new Itr(Itr.PAIRS); }
+
+  public Set entrySet()
+  {
+    return new AbstractSet()
+    {
+      public int size() { return size; }
+      public Iterator iterator() { return new Itr(Itr.ENTRIES); }
+    };
+  }
+
+  public Set keySet()
+  {
+    return new AbstractSet()
+    {
+      public int size() { return size; }
+      public boolean contains(Object o) { return containsKey(o); }
+      public boolean remove(Object o) { return IntHashMap.this.remove(o) != null; }
+      public Iterator iterator() { return new Itr(Itr.KEYS); }
+    };
+  }
+
+  public Collection values()
+  {
+    return new AbstractCollection()
+    {
+      public int size() { return size; }
+      public Iterator iterator() { return new Itr(Itr.VALS); }
+    };
+  }
+
+  final class Itr implements Iterator
+  {
+    static final int PAIRS = 0, ENTRIES = 1, KEYS = 2, VALS = 3;
+
+    Itr(int mode) { this.mode = mode; advance(); }
+
+    private void advance()
+    {
+      while (next < count && vals[next] == REMOVED) ++next;
+    }
+
+    public boolean hasNext() { return next < count; }
+
+    public Object next()
+    {
+      if (next >= count) throw new NoSuchElementException();
+      int p = last = next++;
+      advance();
+      switch (mode)
+      {
+        case KEYS:    return Long.valueOf(keys[p]);
+        case VALS:    return vals[p];
+        case ENTRIES: return new IntEntry(p);
+        default:      if (entry == null) entry = new IntEntry(p); else entry.p = p; return entry;
+      }
+    }
+
+    public void remove()
+    {
+      if (last < 0 || vals[last] == REMOVED) throw new IllegalStateException();
+      removeAt(last);
+      if (size == 0) next = 0;
+    }
+
+    private final int mode;
+    private int next;
+    private int last = -1;
+    private IntEntry entry;
+  }
+
+  final class IntEntry implements Entry
+  {
+    IntEntry(int p) { this.p = p; }
+    public Object getKey() { return Long.valueOf(keys[p]); }
+    public Object getValue() { return vals[p]; }
+    public Object setValue(Object v) { Object old = vals[p]; vals[p] = v; return old; }
+    public int hashCode() { Object v = vals[p]; return Long.hashCode(keys[p]) ^ (v == null ? 0 : v.hashCode()); }
+    public boolean equals(Object o)
+    {
+      if (!(o instanceof Entry)) return false;
+      Entry e = (Entry)o;
+      Object v = vals[p];
+      return getKey().equals(e.getKey()) && (v == null ? e.getValue() == null : v.equals(e.getValue()));
+    }
+    public String toString() { return keys[p] + "=" + vals[p]; }
+    int p;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private static final Object REMOVED = new Object();
+  private static final int MAX_INDEX = 1 << 30;
+
+  final boolean ordered;     // report as ordered map
+  private long[] keys;       // dense keys in insertion order
+  private Object[] vals;     // dense vals or REMOVED
+  private int[] index;       // open addressing table of dense position+1
+  private int shift;         // 64 - log2(index.length)
+  private int count;         // dense positions used including removed
+  private int size;          // number of live entries
+}
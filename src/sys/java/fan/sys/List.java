@@ -17,11 +17,21 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
 import fanx.serial.*;
 import fanx.util.*;
 
 /**
  * List represents a linear sequence of Objects indexed by an Int.
+ * Lists of non-nullable Int and Float are backed by long[] and double[]
+ * respectively so that items are stored unboxed; if such a list is
+ * forced to store a null (which is only possible via reflection) then
+ * it falls back to a boxed backing array.  Lists returned by the
+ * withXXX methods are backed by a PersistentVector whose leaves are
+ * Object[], so their Int and Float items are boxed; dup and rw copy
+ * them back into an unboxed store.
  */
 public final class List<V>
   extends FanObj
@@ -99,32 +109,32 @@ public final class List<V>
 
   List(Type of)
   {
-    if (of == null) { Thread.dumpStack(); throw NullErr.make(); }
-    this.of = of;
-    this.values = (V[])empty;
+    this(of, 0);
   }
 
   List(Type of, int capacity)
   {
     if (of == null) { Thread.dumpStack(); throw NullErr.make(); }
     this.of = of;
-    this.values = capacity == 0 ? (V[])empty : newArray(capacity);
+    if (of == Sys.IntType)
+      this.longs = capacity == 0 ? emptyLongs : new long[capacity];
+    else if (of == Sys.FloatType)
+      this.doubles = capacity == 0 ? emptyDoubles : new double[capacity];
+    else
+      this.values = capacity == 0 ? (V[])empty : newArray(capacity);
   }
 
   List(Type of, V[] values)
   {
-    if (of == null) { Thread.dumpStack(); throw NullErr.make(); }
-    this.of = of;
-    this.values = values;
-    this.size = values.length;
+    this(of, values, values.length);
   }
 
   List(Type of, V[] values, int size)
   {
     if (of == null) { Thread.dumpStack(); throw NullErr.make(); }
     this.of = of;
-    this.values = values;
     this.size = size;
+    if (!unbox(values)) this.values = values;
   }
 
   List(Type of, Collection collection)
@@ -132,7 +142,17 @@ public final class List<V>
     if (of == null) { Thread.dumpStack(); throw NullErr.make(); }
     this.of = of;
     this.size = collection.size();
-    this.values = (V[])collection.toArray(newArray(size));
+    V[] values = (V[])collection.toArray(newArray(size));
+    if (!unbox(values)) this.values = values;
+  }
+
+  List(Type of, PersistentVector tree)
+  {
+    this.of = of;
+    this.tree = tree;
+    this.size = tree.size();
+    this.readonly = true;
+    this.immutable = true;
   }
 
   List(String[] values)
@@ -192,14 +212,14 @@ public final class List<V>
     else
     {
       // null out removed items for GC
-      for (int i=newSize; i<size; ++i) values[i] = null;
+      clear(newSize, size);
       size = newSize;
     }
   }
 
   public final long capacity()
   {
-    return values.length;
+    return cap();
   }
 
   public final void capacity(long c)
@@ -207,9 +227,9 @@ public final class List<V>
     modify();
     int newCapacity = (int)c;
     if (newCapacity < size) throw ArgErr.make("capacity < size");
-    V[] temp = newArray(newCapacity);
-    System.arraycopy(values, 0, temp, 0, size);
-    values = temp;
+    Object temp = newStore(newCapacity);
+    System.arraycopy(store(), 0, temp, 0, size);
+    store(temp);
   }
 
   public final V get(long index)
@@ -219,7 +239,7 @@ public final class List<V>
       int i = (int)index;
       if (i < 0) i = size + i;
       if (i >= size) throw IndexErr.make(index);
-      return values[i];
+      return at(i);
     }
     catch (ArrayIndexOutOfBoundsException e)
     {
@@ -232,7 +252,7 @@ public final class List<V>
   {
     if (index < 0) index = size + index;
     if (index >= size || index < 0) return def;
-    return values[(int)index];
+    return at((int)index);
   }
 
   public final List<V> getRange(Range r)
@@ -242,18 +262,16 @@ public final class List<V>
     int n = e - s + 1;
     if (n < 0) throw IndexErr.make(r);
 
-    List acc = new List(of, n);
-    acc.size = n;
-    System.arraycopy(values, s, acc.values, 0, n);
-    return acc;
+    return like(copyStore(s, n), n);
   }
 
   public final boolean contains(Object value)
   {
     if (value == null) return containsSame(value);
+    if (unboxed()) return indexUnboxed(value, 0, size, 1) >= 0;
     for (int i=0; i<size; ++i)
     {
-      Object obj = values[i];
+      Object obj = at(i);
       if (obj != null && obj.equals(value))
         return true;
     }
@@ -262,8 +280,9 @@ public final class List<V>
 
   public final boolean containsSame(Object value)
   {
+    if (unboxed()) return indexUnboxed(value, 0, size, 1) >= 0;
     for (int i=0; i<size; ++i)
-      if (values[i] == value) return true;
+      if (at(i) == value) return true;
     return false;
   }
 
@@ -290,20 +309,21 @@ public final class List<V>
     int start = (int)off;
     if (start < 0) start = size + start;
     if (start >= size) throw IndexErr.make(off);
+    if (unboxed()) return indexUnboxedToLong(value, start, size, 1);
 
     try
     {
       if (value == null)
       {
         for (int i=start; i<size; ++i)
-          if (values[i] == null)
+          if (at(i) == null)
             return Long.valueOf(i);
       }
       else
       {
         for (int i=start; i<size; ++i)
         {
-          Object obj = values[i];
+          Object obj = at(i);
           if (obj != null && obj.equals(value))
             return Long.valueOf(i);
         }
@@ -323,20 +343,21 @@ public final class List<V>
     int start = (int)off;
     if (start < 0) start = size + start;
     if (start >= size) throw IndexErr.make(off);
+    if (unboxed()) return indexUnboxedToLong(value, start, -1, -1);
 
     try
     {
       if (value == null)
       {
         for (int i=start; i>=0; --i)
-          if (values[i] == null)
+          if (at(i) == null)
             return Long.valueOf(i);
       }
       else
       {
         for (int i=start; i>=0; --i)
         {
-          Object obj = values[i];
+          Object obj = at(i);
           if (obj != null && obj.equals(value))
             return Long.valueOf(i);
         }
@@ -356,11 +377,12 @@ public final class List<V>
     int start = (int)off;
     if (start < 0) start = size + start;
     if (start >= size) throw IndexErr.make(off);
+    if (unboxed()) return indexUnboxedToLong(value, start, size, 1);
 
     try
     {
       for (int i=start; i<size; ++i)
-        if (value == values[i])
+        if (value == at(i))
           return Long.valueOf(i);
       return null;
     }
@@ -373,28 +395,36 @@ public final class List<V>
   public final V first()
   {
     if (size == 0) return null;
-    return values[0];
+    return at(0);
   }
 
   public final V last()
   {
     if (size == 0) return null;
-    return values[size-1];
+    return at(size-1);
   }
 
   public final List<V> dup()
   {
-    V[] dup = newArray(size);
-    System.arraycopy(values, 0, dup, 0, size);
-    return new List(of, dup);
+    return like(copyStore(0, size), size);
   }
 
   public final long hash()
   {
     long hash = 33;
+    if (longs != null)
+    {
+      for (int i=0; i<size; ++i) hash = (31*hash) + Long.hashCode(longs[i]);
+      return hash;
+    }
+    if (doubles != null)
+    {
+      for (int i=0; i<size; ++i) hash = (31*hash) + Double.hashCode(doubles[i]);
+      return hash;
+    }
     for (int i=0; i<size; ++i)
     {
-      Object obj = values[i];
+      Object obj = at(i);
       hash = (31*hash) + (obj == null ? 0 : hash(obj));
     }
     return hash;
@@ -407,8 +437,20 @@ public final class List<V>
       List x = (List)that;
       if (!of.equals(x.of)) return false;
       if (size != x.size) return false;
+      if (longs != null && x.longs != null)
+      {
+        for (int i=0; i<size; ++i)
+          if (longs[i] != x.longs[i]) return false;
+        return true;
+      }
+      if (doubles != null && x.doubles != null)
+      {
+        for (int i=0; i<size; ++i)
+          if (Double.doubleToLongBits(doubles[i]) != Double.doubleToLongBits(x.doubles[i])) return false;
+        return true;
+      }
       for (int i=0; i<size; ++i)
-        if (!OpUtil.compareEQ(values[i], x.values[i])) return false;
+        if (!OpUtil.compareEQ(at(i), x.at(i))) return false;
       return true;
     }
     return false;
@@ -426,7 +468,7 @@ public final class List<V>
       int i = (int)index;
       if (i < 0) i = size + i;
       if (i >= size) throw IndexErr.make(index);
-      values[i] = value;
+      put(i, value);
       return this;
     }
     catch (ArrayIndexOutOfBoundsException e)
@@ -480,11 +522,11 @@ public final class List<V>
     try
     {
       modify();
-      if (values.length <= size)
+      if (cap() <= size)
         grow(size+1);
       if (i < size)
-        System.arraycopy(values, i, values, i+1, size-i);
-      values[i] = value;
+        System.arraycopy(store(), i, store(), i+1, size-i);
+      put(i, value);
       size++;
       return this;
     }
@@ -506,13 +548,17 @@ public final class List<V>
   private List<V> insertAll(int i, List<V> list)
   {
     modify();
-    if (list.size == 0) return this;
-    if (values.length < size+list.size)
-      grow(size+list.size);
+    int n = list.size;
+    if (n == 0) return this;
+    if (cap() < size+n)
+      grow(size+n);
     if (i < size)
-      System.arraycopy(values, i, values, i+list.size, size-i);
-    System.arraycopy(list.values, 0, values, i, list.size);
-    size+=list.size;
+      System.arraycopy(store(), i, store(), i+n, size-i);
+    if (list.tree == null && (values != null ? list.values != null : store().getClass() == list.store().getClass()))
+      System.arraycopy(list.store(), 0, store(), i, n);
+    else
+      for (int j=0; j<n; ++j) put(i+j, list.at(j));
+    size+=n;
     return this;
   }
 
@@ -538,9 +584,9 @@ public final class List<V>
     int i = (int)index;
     if (i < 0) i = size + i;
     if (i >= size) throw IndexErr.make(index);
-    V old = values[i];
+    V old = at(i);
     if (i < size-1)
-      System.arraycopy(values, i+1, values, i, size-i-1);
+      System.arraycopy(store(), i+1, store(), i, size-i-1);
     size--;
     return old;
   }
@@ -554,9 +600,9 @@ public final class List<V>
     if (n < 0) throw IndexErr.make(r);
 
     int shift = size-s-n;
-    if (shift > 0) System.arraycopy(values, s+n, values, s, shift);
+    if (shift > 0) System.arraycopy(store(), s+n, store(), s, shift);
     size -= n;
-    for (int i=size; i<size+n; ++i) values[i] = null;
+    clear(size, size+n);
     return this;
   }
 
@@ -569,14 +615,15 @@ public final class List<V>
 
     // rebuild the backing store array, implementation
     // assumes that this list is bigger than toRemove list
-    V[] newValues = newArray(values.length);
+    Object oldStore = store();
+    Object newStore = newStore(cap());
     int newSize = 0;
     for (int i=0; i<size; ++i)
     {
-      V val = values[i];
-      if (!toRemove.contains(val)) newValues[newSize++] = val;
+      if (!toRemove.contains(at(i)))
+        System.arraycopy(oldStore, i, newStore, newSize++, 1);
     }
-    this.values = newValues;
+    store(newStore);
     this.size = newSize;
     return this;
   }
@@ -587,23 +634,19 @@ public final class List<V>
     if (desired < 1) throw Err.make("desired " + desired + " < 1");
     int newSize = Math.max(desired, size*2);
     if (newSize < 10) newSize = 10;
-    V[] temp = newArray(newSize);
-    System.arraycopy(values, 0, temp, 0, size);
-    values = temp;
+    Object temp = newStore(newSize);
+    System.arraycopy(store(), 0, temp, 0, size);
+    store(temp);
   }
 
   public final List<V> trim()
   {
     modify();
-    if (size == 0)
+    if (cap() != size)
     {
-      values = (V[])empty;
-    }
-    else if (values.length != size)
-    {
-      V[] temp = newArray(size);
-      System.arraycopy(values, 0, temp, 0, size);
-      values = temp;
+      Object temp = newStore(size);
+      System.arraycopy(store(), 0, temp, 0, size);
+      store(temp);
     }
     return this;
   }
@@ -611,8 +654,7 @@ public final class List<V>
   public final List<V> _clear()
   {
     modify();
-    for (int i=0; i<size; ++i)
-      values[i] = null;
+    clear(0, size);
     size = 0;
     return this;
   }
@@ -621,8 +663,8 @@ public final class List<V>
   {
     modify();
     int t = (int)times;
-    if (values.length < size+t) grow(size+t);
-    for (int i=0; i<t; ++i) values[size+i] = val;
+    if (cap() < size+t) grow(size+t);
+    for (int i=0; i<t; ++i) put(size+i, val);
     size += t;
     return this;
   }
@@ -634,7 +676,7 @@ public final class List<V>
   public final V peek()
   {
     if (size == 0) return null;
-    return values[size-1];
+    return at(size-1);
   }
 
   public final V pop()
@@ -656,39 +698,60 @@ public final class List<V>
 
   public final void each(Func f)
   {
-    if (f.arity() == 1)
+    if (f.arity() == 1 && unboxed() && f instanceof Func.Indirect1)
     {
       for (int i=0; i<size; ++i)
-        f.call(values[i]);
+        callUnboxed((Func.Indirect1)f, i);
+    }
+    else if (f.arity() == 1)
+    {
+      for (int i=0; i<size; ++i)
+        f.call(at(i));
     }
     else
     {
       for (int i=0; i<size; ++i)
-        f.call(values[i], Long.valueOf(i));
+        f.call(at(i), Long.valueOf(i));
     }
   }
 
   public final void eachr(Func f)
   {
-    if (f.arity() == 1)
+    if (f.arity() == 1 && unboxed() && f instanceof Func.Indirect1)
+    {
+      for (int i=size-1; i>=0; --i)
+        callUnboxed((Func.Indirect1)f, i);
+    }
+    else if (f.arity() == 1)
     {
       for (int i=size-1; i>=0; --i)
-        f.call(values[i]);
+        f.call(at(i));
     }
     else
     {
       for (int i=size-1; i>=0; --i)
-        f.call(values[i], Long.valueOf(i));
+        f.call(at(i), Long.valueOf(i));
     }
   }
 
+  /**
+   * Call f with the unboxed item at i, which the closure takes
+   * without boxing if its parameter is a non-nullable Int or Float.
+   */
+  private void callUnboxed(Func.Indirect1 f, int i)
+  {
+    if (longs != null) f.callLong(longs[i]);
+    else if (doubles != null) f.callDouble(doubles[i]);
+    else f.call(at(i));
+  }
+
   public final void eachNotNull(Func f)
   {
     if (f.arity() == 1)
     {
       for (int i=0; i<size; ++i)
       {
-        Object value = values[i];
+        Object value = at(i);
         if (value != null) f.call(value);
       }
     }
@@ -696,7 +759,7 @@ public final class List<V>
     {
       for (int i=0; i<size; ++i)
       {
-        Object value = values[i];
+        Object value = at(i);
         if (value != null) f.call(value, Long.valueOf(i));
       }
     }
@@ -712,12 +775,12 @@ public final class List<V>
     if (f.arity() == 1)
     {
       for (int i=s; i<=e; ++i)
-        f.call(values[i]);
+        f.call(at(i));
     }
     else
     {
       for (int i=s; i<=e; ++i)
-        f.call(values[i], Long.valueOf(i));
+        f.call(at(i), Long.valueOf(i));
     }
   }
 
@@ -727,7 +790,7 @@ public final class List<V>
     {
       for (int i=0; i<size; ++i)
       {
-        Object r = f.call(values[i]);
+        Object r = f.call(at(i));
         if (r != null) return r;
       }
     }
@@ -735,7 +798,7 @@ public final class List<V>
     {
       for (int i=0; i<size; ++i)
       {
-        Object r = f.call(values[i], Long.valueOf(i));
+        Object r = f.call(at(i), Long.valueOf(i));
         if (r != null) return r;
       }
     }
@@ -748,7 +811,7 @@ public final class List<V>
     {
       for (int i=size-1; i>=0; --i)
       {
-        Object r = f.call(values[i]);
+        Object r = f.call(at(i));
         if (r != null) return r;
       }
     }
@@ -756,7 +819,7 @@ public final class List<V>
     {
       for (int i=size-1; i>=0; --i)
       {
-        Object r = f.call(values[i], Long.valueOf(i));
+        Object r = f.call(at(i), Long.valueOf(i));
         if (r != null) return r;
       }
     }
@@ -768,14 +831,14 @@ public final class List<V>
     if (f.arity() == 1)
     {
       for (int i=0; i<size; ++i)
-        if (f.callBool(values[i]))
-          return values[i];
+        if (f.callBool(at(i)))
+          return at(i);
     }
     else
     {
       for (int i=0; i<size; ++i)
-        if (f.callBool(values[i], Long.valueOf(i)))
-          return values[i];
+        if (f.callBool(at(i), Long.valueOf(i)))
+          return at(i);
     }
     return null;
   }
@@ -786,7 +849,7 @@ public final class List<V>
     {
       for (int i=0; i<size; ++i)
       {
-        if (f.callBool(values[i]))
+        if (f.callBool(at(i)))
           return Long.valueOf(i);
       }
     }
@@ -795,7 +858,7 @@ public final class List<V>
       for (int i=0; i<size; ++i)
       {
         Long pos = Long.valueOf(i);
-        if (f.callBool(values[i], pos))
+        if (f.callBool(at(i), pos))
           return pos;
       }
     }
@@ -808,14 +871,14 @@ public final class List<V>
     if (f.arity() == 1)
     {
       for (int i=0; i<size; ++i)
-        if (f.callBool(values[i]))
-          acc.add(values[i]);
+        if (f.callBool(at(i)))
+          acc.add(at(i));
     }
     else
     {
       for (int i=0; i<size; ++i)
-        if (f.callBool(values[i], Long.valueOf(i)))
-          acc.add(values[i]);
+        if (f.callBool(at(i), Long.valueOf(i)))
+          acc.add(at(i));
     }
     return acc;
   }
@@ -825,7 +888,7 @@ public final class List<V>
     List acc = new List(t, size);
     for (int i=0; i<size; ++i)
     {
-      Object item = values[i];
+      Object item = at(i);
       if (item != null && typeof(item).is(t))
         acc.add(item);
     }
@@ -837,7 +900,7 @@ public final class List<V>
     List acc = new List(of.toNonNullable(), size);
     for (int i=0; i<size; ++i)
     {
-      Object item = values[i];
+      Object item = at(i);
       if (item != null)
         acc.add(item);
     }
@@ -850,14 +913,14 @@ public final class List<V>
     if (f.arity() == 1)
     {
       for (int i=0; i<size; ++i)
-        if (!f.callBool(values[i]))
-          acc.add(values[i]);
+        if (!f.callBool(at(i)))
+          acc.add(at(i));
     }
     else
     {
       for (int i=0; i<size; ++i)
-        if (!f.callBool(values[i], Long.valueOf(i)))
-          acc.add(values[i]);
+        if (!f.callBool(at(i), Long.valueOf(i)))
+          acc.add(at(i));
     }
     return acc;
   }
@@ -867,13 +930,13 @@ public final class List<V>
     if (f.arity() == 1)
     {
       for (int i=0; i<size; ++i)
-        if (f.callBool(values[i]))
+        if (f.callBool(at(i)))
           return true;
     }
     else
     {
       for (int i=0; i<size; ++i)
-        if (f.callBool(values[i], Long.valueOf(i)))
+        if (f.callBool(at(i), Long.valueOf(i)))
           return true;
     }
     return false;
@@ -884,13 +947,13 @@ public final class List<V>
     if (f.arity() == 1)
     {
       for (int i=0; i<size; ++i)
-        if (!f.callBool(values[i]))
+        if (!f.callBool(at(i)))
           return false;
     }
     else
     {
       for (int i=0; i<size; ++i)
-        if (!f.callBool(values[i], Long.valueOf(i)))
+        if (!f.callBool(at(i), Long.valueOf(i)))
           return false;
     }
     return true;
@@ -901,12 +964,12 @@ public final class List<V>
     if (f.arity() == 1)
     {
       for (int i=0; i<size; ++i)
-        reduction = f.call(reduction, values[i]);
+        reduction = f.call(reduction, at(i));
     }
     else
     {
       for (int i=0; i<size; ++i)
-        reduction = f.call(reduction, values[i], Long.valueOf(i));
+        reduction = f.call(reduction, at(i), Long.valueOf(i));
     }
     return reduction;
   }
@@ -919,12 +982,12 @@ public final class List<V>
     if (f.arity() == 1)
     {
       for (int i=0; i<size; ++i)
-        acc.add(f.call(values[i]));
+        acc.add(f.call(at(i)));
     }
     else
     {
       for (int i=0; i<size; ++i)
-        acc.add(f.call(values[i], Long.valueOf(i)));
+        acc.add(f.call(at(i), Long.valueOf(i)));
     }
     return acc;
   }
@@ -937,12 +1000,12 @@ public final class List<V>
     if (f.arity() == 1)
     {
       for (int i=0; i<size; ++i)
-        acc.addNotNull(f.call(values[i]));
+        acc.addNotNull(f.call(at(i)));
     }
     else
     {
       for (int i=0; i<size; ++i)
-        acc.addNotNull(f.call(values[i], Long.valueOf(i)));
+        acc.addNotNull(f.call(at(i), Long.valueOf(i)));
     }
     return acc;
   }
@@ -956,12 +1019,12 @@ public final class List<V>
     if (f.arity() == 1)
     {
       for (int i=0; i<size; ++i)
-        acc.addAll((List)f.call(values[i]));
+        acc.addAll((List)f.call(at(i)));
     }
     else
     {
       for (int i=0; i<size; ++i)
-        acc.addAll((List)f.call(values[i], Long.valueOf(i)));
+        acc.addAll((List)f.call(at(i), Long.valueOf(i)));
     }
     return acc;
   }
@@ -982,7 +1045,7 @@ public final class List<V>
     boolean arity1 = f.arity() == 1;
     for (int i=0; i<size; ++i)
     {
-      Object val = values[i];
+      Object val = at(i);
       Object key = arity1 ? f.call(val) : f.call(val, Long.valueOf(i));
       List bucket = (List)acc.get(key);
       if (bucket == null)
@@ -999,11 +1062,12 @@ public final class List<V>
   public final V max(Func f)
   {
     if (size == 0) return null;
+    if (f == null && unboxed()) return at(extremeUnboxed(1));
     Comparator c = toComparator(f);
-    V max = values[0];
+    V max = at(0);
     for (int i=1; i<size; ++i)
-      if (c.compare(values[i], max) > 0)
-        max = values[i];
+      if (c.compare(at(i), max) > 0)
+        max = at(i);
     return max;
   }
 
@@ -1011,11 +1075,12 @@ public final class List<V>
   public final V min(Func f)
   {
     if (size == 0) return null;
+    if (f == null && unboxed()) return at(extremeUnboxed(-1));
     Comparator c = toComparator(f);
-    V min = values[0];
+    V min = at(0);
     for (int i=1; i<size; ++i)
-      if (c.compare(values[i], min) < 0)
-        min = values[i];
+      if (c.compare(at(i), min) < 0)
+        min = at(i);
     return min;
   }
 
@@ -1026,7 +1091,7 @@ public final class List<V>
     List acc = new List(of, size);
     for (int i=0; i<size; ++i)
     {
-      Object v = values[i];
+      Object v = at(i);
       if (dups.get(v) == null)
       {
         dups.put(v, this);
@@ -1045,7 +1110,7 @@ public final class List<V>
     // first me
     for (int i=0; i<size; ++i)
     {
-      Object v = values[i];
+      Object v = at(i);
       if (dups.get(v) == null)
       {
         dups.put(v, this);
@@ -1056,7 +1121,7 @@ public final class List<V>
     // then him
     for (int i=0; i<that.size; ++i)
     {
-      Object v = that.values[i];
+      Object v = that.at(i);
       if (dups.get(v) == null)
       {
         dups.put(v, this);
@@ -1072,14 +1137,14 @@ public final class List<V>
     // put other list into map
     HashMap dups = new HashMap(that.size*3);
     for (int i=0; i<that.size; ++i)
-      dups.put(that.values[i], this);
+      dups.put(that.at(i), this);
 
     // now walk this list and accumulate
     // everything found in the dups map
     List acc = new List(of, size);
     for (int i=0; i<size; ++i)
     {
-      Object v = values[i];
+      Object v = at(i);
       if (dups.get(v) != null)
       {
         acc.add(v);
@@ -1097,7 +1162,12 @@ public final class List<V>
   public final List<V> sort(final Func f)
   {
     modify();
-    Arrays.sort(values, 0, size, toComparator(f));
+    if (values != null)
+      Arrays.sort(values, 0, size, toComparator(f));
+    else if (f == null)
+      sortUnboxed();
+    else
+      sortBoxed(toComparator(f));
     return this;
   }
 
@@ -1105,20 +1175,68 @@ public final class List<V>
   public final List<V> sortr(final Func f)
   {
     modify();
-    Arrays.sort(values, 0, size, toReverseComparator(f));
+    if (values != null)
+      Arrays.sort(values, 0, size, toReverseComparator(f));
+    else if (f == null)
+    {
+      sortUnboxed();
+      reverse();
+    }
+    else
+      sortBoxed(toReverseComparator(f));
     return this;
   }
 
   public final long binarySearch(V key) { return binarySearch(key, null); }
   public final long binarySearch(V key, Func f)
   {
+    if (f == null && longs != null && key instanceof Long)
+      return binarySearch(((Long)key).longValue());
+    if (f == null && doubles != null && key instanceof Double)
+      return binarySearch(((Double)key).doubleValue());
+
     Comparator c = toComparator(f);
-    Object[] values = this.values;
     int low = 0, high = size-1;
     while (low <= high)
     {
       int probe = (low + high) >> 1;
-      int cmp = c.compare(values[probe], key);
+      int cmp = c.compare(at(probe), key);
+      if (cmp < 0)
+        low = probe + 1;
+      else if (cmp > 0)
+        high = probe - 1;
+      else
+        return probe;
+    }
+    return -(low + 1);
+  }
+
+  private long binarySearch(long key)
+  {
+    long[] longs = this.longs;
+    int low = 0, high = size-1;
+    while (low <= high)
+    {
+      int probe = (low + high) >>> 1;
+      long val = longs[probe];
+      if (val < key)
+        low = probe + 1;
+      else if (val > key)
+        high = probe - 1;
+      else
+        return probe;
+    }
+    return -(low + 1);
+  }
+
+  private long binarySearch(double key)
+  {
+    double[] doubles = this.doubles;
+    int low = 0, high = size-1;
+    while (low <= high)
+    {
+      int probe = (low + high) >>> 1;
+      int cmp = Double.compare(doubles[probe], key);
       if (cmp < 0)
         low = probe + 1;
       else if (cmp > 0)
@@ -1131,13 +1249,12 @@ public final class List<V>
 
   public final long binaryFind(Func f)
   {
-    Object[] values = this.values;
     int low = 0, high = size-1;
     boolean oneArg = f.arity() == 1;
     while (low <= high)
     {
       int probe = (low + high) >> 1;
-      Object val = values[probe];
+      Object val = at(probe);
       Object res = oneArg ? f.call(val) : f.call(val, Long.valueOf(probe));
       long cmp = ((Long)res).longValue();
       if (cmp > 0)
@@ -1153,16 +1270,10 @@ public final class List<V>
   public final List<V> reverse()
   {
     modify();
-    Object[] values = this.values;
     int size = this.size;
     int mid   = size/2;
     for (int i=0; i<mid; ++i)
-    {
-      Object a = values[i];
-      Object b = values[size-i-1];
-      values[i] = b;
-      values[size-i-1] = a;
-    }
+      swapAt(i, size-i-1);
     return this;
   }
 
@@ -1198,7 +1309,7 @@ public final class List<V>
   {
     for (int i=0; i<size; ++i)
     {
-      Object item = values[i];
+      Object item = at(i);
       if (item instanceof List)
         ((List)item).doFlatten(acc);
       else
@@ -1211,19 +1322,14 @@ public final class List<V>
     if (size == 0) return null;
     int i = FanInt.random.nextInt();
     if (i < 0) i = -i;
-    return values[i % size];
+    return at(i % size);
   }
 
   public final List<V> shuffle()
   {
     modify();
     for (int i=0; i<size; ++i)
-    {
-      int randi = FanInt.random.nextInt(i+1);
-      V temp = values[i];
-      values[i] = values[randi];
-      values[randi] = temp;
-    }
+      swapAt(i, FanInt.random.nextInt(i+1));
     return this;
   }
 
@@ -1231,6 +1337,11 @@ public final class List<V>
 // Conversion
 //////////////////////////////////////////////////////////////////////////
 
+  public final Seq seq()
+  {
+    return Seq.makeList(this);
+  }
+
   public final String join() { return join("", null); }
   public final String join(String sep) { return join(sep, null); }
   public final String join(String sep, Func f)
@@ -1239,7 +1350,7 @@ public final class List<V>
 
     if (size == 1)
     {
-      Object v = values[0];
+      Object v = at(0);
       if (f != null) return (String)f.call(v, 0L);
       if (v == null) return "null";
       return toStr(v);
@@ -1250,9 +1361,9 @@ public final class List<V>
     {
       if (i > 0) s.append(sep);
       if (f == null)
-        s.append(values[i]);
+        s.append(at(i));
       else
-        s.append(f.call(values[i], Long.valueOf(i)));
+        s.append(f.call(at(i), Long.valueOf(i)));
     }
     return s.toString();
   }
@@ -1265,7 +1376,7 @@ public final class List<V>
     for (int i=0; i<size; ++i)
     {
       if (i > 0) s.append(", ");
-      s.append(values[i]);
+      s.append(at(i));
     }
     s.append("]");
     return s.toString();
@@ -1280,7 +1391,7 @@ public final class List<V>
     for (int i=0; i<size; ++i)
     {
       if (i > 0) s.append(',').append(' ');
-      s.append(FanObj.trap(values[i], "toCode", null));
+      s.append(FanObj.trap(at(i), "toCode", null));
     }
     s.append(']');
     return s.toString();
@@ -1328,20 +1439,20 @@ public final class List<V>
   public final Object[] asArray(Class of)
   {
     // short circuit if values is already correct array type
-    if (size == values.length && of == values.getClass().getComponentType())
+    if (values != null && size == values.length && of == values.getClass().getComponentType())
       return values;
 
     // make a safe copy of correct length and type
     Object[] r = (Object[]) Array.newInstance(of, size);
-    System.arraycopy(values, 0, r, 0, size);
+    copyTo(0, r, 0, size);
     return r;
   }
 
   public final Object[] toArray()
   {
-    if (values.length == size) return values;
+    if (values != null && values.length == size) return values;
     Object[] r = newArray(size);
-    System.arraycopy(values, 0, r, 0, size);
+    copyTo(0, r, 0, size);
     return r;
   }
 
@@ -1349,7 +1460,7 @@ public final class List<V>
   {
     try
     {
-      System.arraycopy(values, 0, a, 0, size);
+      copyTo(0, a, 0, size);
       return a;
     }
     catch (ArrayIndexOutOfBoundsException e)
@@ -1362,7 +1473,7 @@ public final class List<V>
   {
     try
     {
-      System.arraycopy(values, start, a, 0, len);
+      copyTo(start, a, 0, len);
       return a;
     }
     catch (ArrayIndexOutOfBoundsException e)
@@ -1375,7 +1486,7 @@ public final class List<V>
   {
     try
     {
-      System.arraycopy(values, 0, a, off, len);
+      copyTo(0, a, off, len);
       return a;
     }
     catch (ArrayIndexOutOfBoundsException e)
@@ -1403,6 +1514,277 @@ public final class List<V>
     return a;
   }
 
+//////////////////////////////////////////////////////////////////////////
+// Backing Store
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * If this is a list of non-nullable Int or Float then unbox the given
+   * array into a long[] or double[] backing store and return true.  Return
+   * false if the array should be used as a boxed backing store.
+   */
+  private boolean unbox(Object[] array)
+  {
+    if (of == Sys.IntType)
+    {
+      long[] a = new long[array.length];
+      for (int i=0; i<size; ++i)
+      {
+        Object v = array[i];
+        if (!(v instanceof Long)) return false;
+        a[i] = ((Long)v).longValue();
+      }
+      this.longs = a;
+      return true;
+    }
+    if (of == Sys.FloatType)
+    {
+      double[] a = new double[array.length];
+      for (int i=0; i<size; ++i)
+      {
+        Object v = array[i];
+        if (!(v instanceof Double)) return false;
+        a[i] = ((Double)v).doubleValue();
+      }
+      this.doubles = a;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Switch from an unboxed to a boxed backing store so that
+   * a null can be stored.  We box the entire capacity since
+   * this may be called in the middle of an insert.
+   */
+  private void box()
+  {
+    Object[] temp = newArray(cap());
+    for (int i=0; i<temp.length; ++i) temp[i] = at(i);
+    this.values = (V[])temp;
+    this.longs = null;
+    this.doubles = null;
+  }
+
+  /**
+   * Is this list backed by a long[] or double[]
+   */
+  private boolean unboxed()
+  {
+    return longs != null || doubles != null;
+  }
+
+  /**
+   * Get the backing store array: long[], double[], or V[].  If this
+   * is a persistent list then return a copy of its items as a V[].
+   */
+  private Object store()
+  {
+    if (values != null) return values;
+    if (longs != null) return longs;
+    if (doubles != null) return doubles;
+    return copyStore(0, size);
+  }
+
+  /**
+   * Copy n items from index s into a new backing store of the same
+   * kind.  A persistent list copies straight from its tree's leaves.
+   */
+  private Object copyStore(int s, int n)
+  {
+    Object temp = newStore(n);
+    if (tree != null) tree.copyTo(s, (Object[])temp, 0, n);
+    else System.arraycopy(store(), s, temp, 0, n);
+    return temp;
+  }
+
+  /**
+   * Set the backing store array: long[], double[], or V[]
+   */
+  private void store(Object store)
+  {
+    this.values  = store instanceof Object[] ? (V[])store : null;
+    this.longs   = store instanceof long[]   ? (long[])store : null;
+    this.doubles = store instanceof double[] ? (double[])store : null;
+  }
+
+  /**
+   * Allocate a backing store array of the same kind as this list
+   */
+  private Object newStore(int capacity)
+  {
+    if (longs != null) return capacity == 0 ? emptyLongs : new long[capacity];
+    if (doubles != null) return capacity == 0 ? emptyDoubles : new double[capacity];
+    return newArray(capacity);
+  }
+
+  /**
+   * Make a list of the same type using the given backing store
+   */
+  private List<V> like(Object store, int size)
+  {
+    if (tree != null) return new List(of, (V[])store, size);
+    List acc = new List(of);
+    acc.store(store);
+    acc.size = size;
+    return acc;
+  }
+
+  private int cap()
+  {
+    if (values != null) return values.length;
+    if (longs != null) return longs.length;
+    if (doubles != null) return doubles.length;
+    return size;
+  }
+
+  private V at(int i)
+  {
+    if (values != null) return values[i];
+    if (longs != null) return (V)Long.valueOf(longs[i]);
+    if (doubles != null) return (V)Double.valueOf(doubles[i]);
+
+    // keep the last leaf so iterating a persistent list only walks
+    // the tree once per leaf rather than once per item
+    PersistentVector.Leaf l = leaf;
+    if (l == null || !l.has(i)) leaf = l = tree.leaf(i);
+    return (V)l.get(i);
+  }
+
+  private void put(int i, Object val)
+  {
+    if (values == null)
+    {
+      if (longs != null && val instanceof Long) { longs[i] = ((Long)val).longValue(); return; }
+      if (doubles != null && val instanceof Double) { doubles[i] = ((Double)val).doubleValue(); return; }
+      if (val != null) throw new ArrayStoreException();
+      box();
+    }
+    values[i] = (V)val;
+  }
+
+  private void swapAt(int a, int b)
+  {
+    if (values != null)
+    {
+      V temp = values[a]; values[a] = values[b]; values[b] = temp;
+    }
+    else if (longs != null)
+    {
+      long temp = longs[a]; longs[a] = longs[b]; longs[b] = temp;
+    }
+    else
+    {
+      double temp = doubles[a]; doubles[a] = doubles[b]; doubles[b] = temp;
+    }
+  }
+
+  /**
+   * Null out items for GC; unboxed items don't need to be cleared
+   */
+  private void clear(int from, int to)
+  {
+    if (values != null)
+      for (int i=from; i<to; ++i) values[i] = null;
+  }
+
+  /**
+   * Copy items into a boxed array
+   */
+  private void copyTo(int start, Object[] a, int off, int len)
+  {
+    if (values != null)
+    {
+      System.arraycopy(values, start, a, off, len);
+    }
+    else if (tree != null)
+    {
+      tree.copyTo(start, a, off, len);
+    }
+    else
+    {
+      if (start < 0 || off < 0 || len < 0 || start+len > cap() || off+len > a.length)
+        throw new ArrayIndexOutOfBoundsException();
+      for (int i=0; i<len; ++i) a[off+i] = at(start+i);
+    }
+  }
+
+  /**
+   * Scan an unboxed store for value from start (inclusive) to end
+   * (exclusive) by step.  Float items are matched by their bits to
+   * be consistent with Double.equals.  Return index or -1.
+   */
+  private int indexUnboxed(Object value, int start, int end, int step)
+  {
+    if (longs != null)
+    {
+      if (!(value instanceof Long)) return -1;
+      long v = ((Long)value).longValue();
+      long[] a = longs;
+      for (int i=start; i!=end; i+=step)
+        if (a[i] == v) return i;
+    }
+    else
+    {
+      if (!(value instanceof Double)) return -1;
+      long v = Double.doubleToLongBits(((Double)value).doubleValue());
+      double[] a = doubles;
+      for (int i=start; i!=end; i+=step)
+        if (Double.doubleToLongBits(a[i]) == v) return i;
+    }
+    return -1;
+  }
+
+  private Long indexUnboxedToLong(Object value, int start, int end, int step)
+  {
+    int i = indexUnboxed(value, start, end, step);
+    return i < 0 ? null : Long.valueOf(i);
+  }
+
+  /**
+   * Return index of max (sign=1) or min (sign=-1) item in unboxed store
+   */
+  private int extremeUnboxed(int sign)
+  {
+    int r = 0;
+    if (longs != null)
+    {
+      long[] a = longs;
+      for (int i=1; i<size; ++i)
+        if (Long.compare(a[i], a[r]) * sign > 0) r = i;
+    }
+    else
+    {
+      double[] a = doubles;
+      for (int i=1; i<size; ++i)
+        if (Double.compare(a[i], a[r]) * sign > 0) r = i;
+    }
+    return r;
+  }
+
+  /**
+   * Sort unboxed store using same ordering as defaultComparator
+   * which for boxed Floats is Double.compareTo
+   */
+  private void sortUnboxed()
+  {
+    if (longs != null)
+      Arrays.sort(longs, 0, size);
+    else
+      Arrays.sort(doubles, 0, size);
+  }
+
+  /**
+   * Sort unboxed store with a comparator by boxing into a temp array
+   */
+  private void sortBoxed(Comparator c)
+  {
+    Object[] temp = newArray(size);
+    copyTo(0, temp, 0, size);
+    Arrays.sort(temp, c);
+    for (int i=0; i<size; ++i) put(i, temp[i]);
+  }
+
 //////////////////////////////////////////////////////////////////////////
 // Comparators
 //////////////////////////////////////////////////////////////////////////
@@ -1433,6 +1815,265 @@ public final class List<V>
     public int compare(Object a, Object b) { return (int)OpUtil.compare(b, a); }
   };
 
+//////////////////////////////////////////////////////////////////////////
+// Parallel
+//////////////////////////////////////////////////////////////////////////
+
+  public final List<V> parSort() { return parSort(null); }
+  public final List<V> parSort(Func f)
+  {
+    modify();
+    if (f != null) checkParFunc(f);
+    final Comparator c = toComparator(f);
+    final AtomicReference err = new AtomicReference();
+    try
+    {
+      if (values != null)
+        Arrays.parallelSort(values, 0, size, parComparator(c, err));
+      else if (f == null && longs != null)
+        Arrays.parallelSort(longs, 0, size);
+      else if (f == null)
+        Arrays.parallelSort(doubles, 0, size);
+      else
+      {
+        Object[] temp = newArray(size);
+        copyTo(0, temp, 0, size);
+        Arrays.parallelSort(temp, parComparator(c, err));
+        for (int i=0; i<size; ++i) put(i, temp[i]);
+      }
+    }
+    catch (RuntimeException e) { throw parErr(e, err); }
+    catch (Error e) { throw parErr(e, err); }
+    return this;
+  }
+
+  public final List parMap(final Func f)
+  {
+    checkParFunc(f);
+    if (size < parThreshold) return map(f);
+    Type r = f.returns();
+    if (r == Sys.VoidType) r = Sys.ObjType.toNullable();
+    final Object[] results = new Object[size];
+    final boolean withIndex = f.arity() != 1;
+    par(new ParBody()
+    {
+      public void run(int chunk, int lo, int hi)
+      {
+        for (int i=lo; i<hi; ++i)
+          results[i] = withIndex ? f.call(at(i), Long.valueOf(i)) : f.call(at(i));
+      }
+    });
+    return new List(r, results);
+  }
+
+  public final List<V> parFindAll(final Func f)
+  {
+    checkParFunc(f);
+    if (size < parThreshold) return findAll(f);
+    final boolean[] matches = new boolean[size];
+    final boolean withIndex = f.arity() != 1;
+    par(new ParBody()
+    {
+      public void run(int chunk, int lo, int hi)
+      {
+        for (int i=lo; i<hi; ++i)
+          matches[i] = withIndex ? f.callBool(at(i), Long.valueOf(i)) : f.callBool(at(i));
+      }
+    });
+    List acc = new List(of, size);
+    for (int i=0; i<size; ++i)
+      if (matches[i]) acc.add(at(i));
+    return acc;
+  }
+
+  public final Object parReduce(final Object init, final Func f)
+  {
+    checkParFunc(f);
+    if (size < parThreshold) return reduce(init, f);
+    final Object[] partials = new Object[parChunks()];
+    par(new ParBody()
+    {
+      public void run(int chunk, int lo, int hi)
+      {
+        Object reduction = init;
+        for (int i=lo; i<hi; ++i)
+          reduction = f.call(reduction, at(i));
+        partials[chunk] = reduction;
+      }
+    });
+    Object reduction = partials[0];
+    for (int i=1; i<partials.length; ++i)
+      reduction = f.call(reduction, partials[i]);
+    return reduction;
+  }
+
+  /**
+   * Closures are called concurrently so must be immutable
+   */
+  private static void checkParFunc(Func f)
+  {
+    if (!f.isImmutable())
+      throw NotImmutableErr.make("Func must be immutable: " + f.typeof());
+  }
+
+  /**
+   * Number of chunks to split this list into: enough to keep all the
+   * common pool threads busy but none smaller than parChunkSize.
+   */
+  private int parChunks()
+  {
+    int chunks = ForkJoinPool.getCommonPoolParallelism() * 4;
+    return Math.max(1, Math.min(chunks, size / parChunkSize));
+  }
+
+  /**
+   * Run body over every chunk of this list in the common ForkJoinPool
+   */
+  private void par(ParBody body)
+  {
+    AtomicReference err = new AtomicReference();
+    int chunks = parChunks();
+    try
+    {
+      ForkJoinPool.commonPool().invoke(new ParTask(body, err, size, chunks, 0, chunks));
+    }
+    catch (RuntimeException e) { throw parErr(e, err); }
+    catch (Error e) { throw parErr(e, err); }
+  }
+
+  /**
+   * Comparator which records the first error raised by c
+   */
+  private static Comparator parComparator(final Comparator c, final AtomicReference err)
+  {
+    return new Comparator()
+    {
+      public int compare(Object a, Object b)
+      {
+        try
+        {
+          return c.compare(a, b);
+        }
+        catch (RuntimeException e) { err.compareAndSet(null, e); throw e; }
+        catch (Error e) { err.compareAndSet(null, e); throw e; }
+      }
+    };
+  }
+
+  /**
+   * When an exception crosses threads ForkJoin rethrows a new instance
+   * of its class, which for Err loses the message; so we rethrow the
+   * original error raised by the closure if there was one.
+   */
+  private static RuntimeException parErr(Throwable e, AtomicReference err)
+  {
+    Throwable first = (Throwable)err.get();
+    if (first == null) first = e;
+    if (first instanceof Error) throw (Error)first;
+    return (RuntimeException)first;
+  }
+
+  private static interface ParBody
+  {
+    void run(int chunk, int lo, int hi);
+  }
+
+  /**
+   * Splits the chunk range in half until it is a single chunk
+   */
+  private static final class ParTask extends RecursiveAction
+  {
+    ParTask(ParBody body, AtomicReference err, int size, int chunks, int from, int to)
+    {
+      this.body   = body;
+      this.err    = err;
+      this.size   = size;
+      this.chunks = chunks;
+      this.from   = from;
+      this.to     = to;
+    }
+
+    protected void compute()
+    {
+      if (to - from > 1)
+      {
+        int mid = (from + to) >>> 1;
+        invokeAll(new ParTask(body, err, size, chunks, from, mid),
+                  new ParTask(body, err, size, chunks, mid, to));
+        return;
+      }
+      try
+      {
+        int lo = (int)((long)size * from / chunks);
+        int hi = (int)((long)size * to / chunks);
+        body.run(from, lo, hi);
+      }
+      catch (RuntimeException e) { err.compareAndSet(null, e); throw e; }
+      catch (Error e) { err.compareAndSet(null, e); throw e; }
+    }
+
+    private final ParBody body;
+    private final AtomicReference err;
+    private final int size, chunks, from, to;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Persistent
+//////////////////////////////////////////////////////////////////////////
+
+  public final List<V> withAdd(V value)
+  {
+    return withInsert(size, value);
+  }
+
+  public final List<V> withInsert(long index, V value)
+  {
+    int i = (int)index;
+    if (i < 0) i = size + i;
+    if (i > size || i < 0) throw IndexErr.make(index);
+    return new List(of, persistent().insert(i, toItem(value, i)));
+  }
+
+  public final List<V> withSet(long index, V value)
+  {
+    int i = (int)index;
+    if (i < 0) i = size + i;
+    if (i >= size || i < 0) throw IndexErr.make(index);
+    return new List(of, persistent().set(i, toItem(value, i)));
+  }
+
+  public final List<V> withRemoveAt(long index)
+  {
+    int i = (int)index;
+    if (i < 0) i = size + i;
+    if (i >= size || i < 0) throw IndexErr.make(index);
+    return new List(of, persistent().remove(i));
+  }
+
+  /**
+   * Get the persistent vector of this list's items.  If this
+   * list isn't already persistent then build one in O(n).
+   */
+  private PersistentVector persistent()
+  {
+    if (tree != null) return tree;
+    List imm = (List)toImmutable();
+    Object[] a = new Object[size];
+    imm.copyTo(0, a, 0, size);
+    return PersistentVector.make(a, size);
+  }
+
+  /**
+   * Check the type of an item added to a persistent list
+   * since it isn't stored in an array of the correct type.
+   */
+  private Object toItem(Object value, int i)
+  {
+    if (value != null && !of.toClass().isInstance(value))
+      throw CastErr.make("Adding '" + FanObj.typeof(value) + "' into '" + of + "[]'");
+    return toImmutable(value, i);
+  }
+
 //////////////////////////////////////////////////////////////////////////
 // Readonly
 //////////////////////////////////////////////////////////////////////////
@@ -1451,14 +2092,9 @@ public final class List<V>
   {
     if (!readonly) return this;
 
-    Object[] temp = newArray(size);
-    System.arraycopy(values, 0, temp, 0, size);
-
-    List rw = new List(of);
-    rw.values   = temp;
-    rw.size     = size;
+    List rw = like(copyStore(0, size), size);
     rw.readonly = false;
-    rw.readonlyList = this;
+    if (tree == null) rw.readonlyList = this;
     return rw;
   }
 
@@ -1467,9 +2103,7 @@ public final class List<V>
     if (readonly) return this;
     if (readonlyList == null)
     {
-      List ro = new List(of);
-      ro.values   = values;
-      ro.size     = size;
+      List ro = like(store(), size);
       ro.readonly = true;
       readonlyList = ro;
     }
@@ -1485,22 +2119,19 @@ public final class List<V>
   {
     if (immutable) return this;
 
+    // unboxed Int and Float items are always immutable
+    if (unboxed())
+    {
+      List ro = dup();
+      ro.readonly = true;
+      ro.immutable = true;
+      return ro;
+    }
+
     // make safe copy
     Object[] temp = newArray(size);
     for (int i=0; i<size; ++i)
-    {
-      Object item = values[i];
-      if (item != null)
-      {
-        if (item instanceof List)
-          item = ((List)item).toImmutable();
-        else if (item instanceof Map)
-          item = ((Map)item).toImmutable();
-        else if (!isImmutable(item))
-          throw NotImmutableErr.make("Item [" + i + "] not immutable " + typeof(item));
-      }
-      temp[i] = item;
-    }
+      temp[i] = toImmutable(at(i), i);
 
     // return new immutable list
     List ro = new List(of, temp);
@@ -1509,6 +2140,18 @@ public final class List<V>
     return ro;
   }
 
+  /**
+   * Get an immutable version of an item or throw NotImmutableErr
+   */
+  private static Object toImmutable(Object item, long i)
+  {
+    if (item == null) return null;
+    if (item instanceof List) return ((List)item).toImmutable();
+    if (item instanceof Map) return ((Map)item).toImmutable();
+    if (!isImmutable(item)) throw NotImmutableErr.make("Item [" + i + "] not immutable " + typeof(item));
+    return item;
+  }
+
   private void modify()
   {
     // if readonly then throw readonly exception
@@ -1519,9 +2162,9 @@ public final class List<V>
     // it so it remains immutable
     if (readonlyList != null)
     {
-      V[] temp = newArray(size);
-      System.arraycopy(values, 0, temp, 0, size);
-      readonlyList.values = temp;
+      Object temp = newStore(size);
+      System.arraycopy(store(), 0, temp, 0, size);
+      readonlyList.store(temp);
       readonlyList = null;
     }
   }
@@ -1539,7 +2182,7 @@ public final class List<V>
   public final V get(int index)
   {
     if (index < 0 || index >= size) throw IndexErr.make(""+index);
-    return values[index];
+    return at(index);
   }
 
   public final V set(int index, V value)
@@ -1654,7 +2297,7 @@ public final class List<V>
     public Object next()
     {
       if (cursor >= size) throw new NoSuchElementException();
-      return (V) values[cursor++];
+      return at(cursor++);
     }
 
     public int nextIndex()
@@ -1672,7 +2315,7 @@ public final class List<V>
       int i = cursor - 1;
       if (cursor < 0) throw new NoSuchElementException();
       cursor = i;
-      return (V) values[cursor];
+      return at(cursor);
     }
 
     public void set(Object e)
@@ -1698,9 +2341,17 @@ public final class List<V>
 //////////////////////////////////////////////////////////////////////////
 
   private static final Object[] empty = new Object[0];
+  private static final long[] emptyLongs = new long[0];
+  private static final double[] emptyDoubles = new double[0];
+  private static final int parThreshold = 10000;   // min size to run parXXX in parallel
+  private static final int parChunkSize = 1000;    // min items per parallel chunk
 
   private Type of;
-  private V[] values;
+  private V[] values;            // boxed backing store or null
+  private long[] longs;          // backing store for Int or null
+  private double[] doubles;      // backing store for Float or null
+  private PersistentVector tree; // backing store for persistent list or null
+  private PersistentVector.Leaf leaf; // last leaf of tree read by at()
   private int size;
   private boolean readonly;
   private boolean immutable;
@@ -455,10 +455,15 @@ public class LocalFile
 //////////////////////////////////////////////////////////////////////////
 
   public Buf open(String mode)
+  {
+    return openBuffered(mode, 0L);
+  }
+
+  public Buf openBuffered(String mode, long bufSize)
   {
     try
     {
-      return new FileBuf(this, new RandomAccessFile(file, mode));
+      return new FileBuf(this, new RandomAccessFile(file, mode), mode, bufSize);
     }
     catch (java.io.IOException e)
     {
@@ -487,7 +492,7 @@ public class LocalFile
       {
         fp = new RandomAccessFile(file, rw);
         chan = fp.getChannel();
-        return new NioBuf(chan.map(mm, pos, size.longValue()));
+        return MmapBuf.map(chan, mm, pos, size.longValue());
       }
       finally
       {
@@ -521,7 +526,9 @@ public class LocalFile
       if (parent != null && !parent.exists()) parent.mkdirs();
       java.io.FileOutputStream fout = new java.io.FileOutputStream(file, append);
       java.io.OutputStream bout = SysOutStream.toBuffered(fout, bufSize);
-      return new LocalFileOutStream(bout, fout.getFD());
+      LocalFileOutStream out = new LocalFileOutStream(bout, fout.getFD());
+      out.channel = fout.getChannel();
+      return out;
     }
     catch (java.io.IOException e)
     {
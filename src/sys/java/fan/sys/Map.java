@@ -20,7 +20,10 @@ import fanx.serial.*;
 import fanx.util.OpUtil;
 
 /**
- * Map is a hashmap of key value pairs.
+ * Map is a hashmap of key value pairs.  Maps keyed by Int are
+ * backed by IntHashMap which stores the keys unboxed.  Maps returned
+ * by withSet and withRemove are backed by a PersistentMap which
+ * boxes Int keys; dup and rw copy them back into an IntHashMap.
  */
 public final class Map<K,V>
   extends FanObj
@@ -43,7 +46,7 @@ public final class Map<K,V>
       throw ArgErr.make("Non-nullable map type required: " + type);
     }
     if (t.k.isNullable()) throw ArgErr.make("Map key type cannot be nullable: " + t.k);
-    return new Map(t, new HashMap());
+    return new Map(t);
   }
 
   /** Construct map with given key and value types */
@@ -54,12 +57,12 @@ public final class Map<K,V>
 
   Map(Type k, Type v)
   {
-    this(new MapType(k, v), new HashMap());
+    this(new MapType(k, v));
   }
 
   Map(MapType type)
   {
-    this(type, new HashMap());
+    this(type, type.k == Sys.IntType ? new IntHashMap(false) : new HashMap());
   }
 
   Map(MapType type, HashMap map)
@@ -150,6 +153,16 @@ public final class Map<K,V>
     return new List(type.v, map.values());
   }
 
+  public final Seq seqKeys()
+  {
+    return Seq.makeMap(this, true);
+  }
+
+  public final Seq seqVals()
+  {
+    return Seq.makeMap(this, false);
+  }
+
   public final Map<K,V> set(K key, V value)
   {
     modify();
@@ -276,7 +289,7 @@ public final class Map<K,V>
   public final Map<K,V> dup()
   {
     Map dup = new Map(type);
-    dup.map = (HashMap)this.map.clone();
+    dup.map = cloneMap();
     return dup;
   }
 
@@ -315,6 +328,7 @@ public final class Map<K,V>
 
   public final boolean ordered()
   {
+    if (map instanceof IntHashMap) return ((IntHashMap)map).ordered;
     return map instanceof LinkedHashMap;
   }
 
@@ -330,7 +344,9 @@ public final class Map<K,V>
 
     if (ordered() == v) return;
 
-    if (v)
+    if (map instanceof IntHashMap)
+      map = new IntHashMap(v);
+    else if (v)
       map = new LinkedHashMap();
     else
       map = new HashMap();
@@ -602,6 +618,75 @@ public final class Map<K,V>
     return s.toString();
   }
 
+//////////////////////////////////////////////////////////////////////////
+// Persistent
+//////////////////////////////////////////////////////////////////////////
+
+  public final Map<K,V> withSet(K key, V val)
+  {
+    if (key == null)
+      throw NullErr.make("key is null");
+    if (!isImmutable(key))
+      throw NotImmutableErr.make("key is not immutable: " + typeof(key));
+    if (val != null)
+      val = (V)FanObj.toImmutable(val);
+
+    // ordered and case insensitive maps aren't hashed by
+    // key.hashCode alone, so fall back to a full copy
+    if (ordered() || caseInsensitive())
+    {
+      Map m = dup();
+      m.map.put(key, val);
+      m.def = def;
+      return (Map)m.toImmutable();
+    }
+    return persistent(persistent().with(key, val));
+  }
+
+  public final Map<K,V> withRemove(K key)
+  {
+    if (key == null || !map.containsKey(key)) return (Map)toImmutable();
+    if (ordered() || caseInsensitive())
+    {
+      Map m = dup();
+      m.map.remove(key);
+      m.def = def;
+      return (Map)m.toImmutable();
+    }
+    return persistent(persistent().without(key));
+  }
+
+  /**
+   * Get the persistent map of this map's pairs.  If this
+   * map isn't already persistent then build one in O(n).
+   */
+  private PersistentMap persistent()
+  {
+    if (map instanceof PersistentMap) return (PersistentMap)map;
+    return PersistentMap.make(((Map)toImmutable()).pairsIterator());
+  }
+
+  private Map<K,V> persistent(PersistentMap pmap)
+  {
+    Map m = new Map(type, pmap);
+    m.readonly = true;
+    m.immutable = true;
+    m.def = def;
+    return m;
+  }
+
+  /**
+   * Copy the backing map to use for a mutable map.  A persistent
+   * map can't be mutated so its pairs are copied into a HashMap.
+   */
+  private HashMap cloneMap()
+  {
+    if (!(map instanceof PersistentMap)) return (HashMap)map.clone();
+    HashMap copy = type.k == Sys.IntType ? new IntHashMap(false, map.size()) : new HashMap(map.size()*2+3);
+    copy.putAll(map);
+    return copy;
+  }
+
 //////////////////////////////////////////////////////////////////////////
 // Readonly
 //////////////////////////////////////////////////////////////////////////
@@ -621,9 +706,9 @@ public final class Map<K,V>
     if (!readonly) return this;
 
     Map rw = new Map(type);
-    rw.map = (HashMap)map.clone();
+    rw.map = cloneMap();
     rw.readonly = false;
-    rw.readonlyMap = this;
+    if (!(map instanceof PersistentMap)) rw.readonlyMap = this;
     rw.def = def;
     return rw;
   }
@@ -654,6 +739,7 @@ public final class Map<K,V>
     // allocate new map of correct type
     HashMap temp;
     if (caseInsensitive()) temp = new CIHashMap(map.size()*2+3);
+    else if (map instanceof IntHashMap) temp = new IntHashMap(ordered(), map.size());
     else if (ordered()) temp = new LinkedHashMap(map.size()*2+3);
     else temp = new HashMap(map.size()*2+3);
 
@@ -704,6 +790,8 @@ public final class Map<K,V>
   {
     if (map instanceof CIHashMap)
       return ((CIHashMap)map).pairs().iterator();
+    else if (map instanceof IntHashMap)
+      return ((IntHashMap)map).pairs();
     else
       return map.entrySet().iterator();
   }
@@ -88,7 +88,7 @@ class MapType
 
   Map makeMap(HashMap map)
   {
-    if (map == null) map = new HashMap();
+    if (map == null) return new Map(this);
     return new Map(this, map);
   }
 
@@ -287,6 +287,24 @@ public final class MemBuf
       charsetEncoder.encode(c, this);
       return this;
     }
+
+    public OutStream writeChars(String s, int off, int len)
+    {
+      // bulk encode straight into our byte array if supported
+      Charset.Encoder enc = charsetEncoder;
+      int max = enc.maxBytesPerChar();
+      if (max == 0) return super.writeChars(s, off, len);
+      int end = off + len;
+      while (off < end)
+      {
+        int chunkEnd = chunkEnd(s, off, end, charsChunk);
+        grow(pos + (chunkEnd - off) * max + 1);
+        pos = enc.encodeChars(s, off, chunkEnd, buf, pos);
+        off = chunkEnd;
+      }
+      if (pos > size) size = pos;
+      return this;
+    }
   }
 
 //////////////////////////////////////////////////////////////////////////
@@ -338,6 +356,14 @@ public final class MemBuf
       return MemBuf.this.remaining();
     }
 
+    int readAscii(StringBuilder sb, int max, boolean[] stops)
+    {
+      int start = pos;
+      int end = size - start > max ? start + max : size;
+      pos = appendAscii(buf, start, end, sb, stops);
+      return pos - start;
+    }
+
     public Long peek()
     {
       if (pos >= size) return null;
@@ -8,6 +8,9 @@
 //
 package fan.sys;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
 import fanx.fcode.*;
 
@@ -247,238 +250,72 @@ public class Method
 
     public Object call()
     {
-      boolean isStatic = isStatic();
-      checkArgs(0, isStatic, false);
-      return invoke(null, noArgs);
+      checkArgs(0, isStatic(), false);
+      return invoke(null, 0, null, null, null, null, null, null, null, null);
     }
 
     public Object call(Object a)
     {
       boolean isStatic = isStatic();
       int p = checkArgs(1, isStatic, false);
-      Object[] args = new Object[p];
-      if (isStatic)
-      {
-        switch (p)
-        {
-          case 1: args[0] = a;
-        }
-        return invoke(null, args);
-      }
-      else
-      {
-        return invoke(a, args);
-      }
+      if (isStatic) return invoke(null, p, a, null, null, null, null, null, null, null);
+      return invoke(a, p, null, null, null, null, null, null, null, null);
     }
 
     public Object call(Object a, Object b)
     {
       boolean isStatic = isStatic();
       int p = checkArgs(2, isStatic, false);
-      Object[] args = new Object[p];
-      if (isStatic)
-      {
-        switch (p)
-        {
-          case 2: args[1] = b;
-          case 1: args[0] = a;
-        }
-        return invoke(null, args);
-      }
-      else
-      {
-        switch (p)
-        {
-          case 1: args[0] = b;
-        }
-        return invoke(a, args);
-      }
+      if (isStatic) return invoke(null, p, a, b, null, null, null, null, null, null);
+      return invoke(a, p, b, null, null, null, null, null, null, null);
     }
 
     public Object call(Object a, Object b, Object c)
     {
       boolean isStatic = isStatic();
       int p = checkArgs(3, isStatic, false);
-      Object[] args = new Object[p];
-      if (isStatic)
-      {
-        switch (p)
-        {
-          case 3: args[2] = c;
-          case 2: args[1] = b;
-          case 1: args[0] = a;
-        }
-        return invoke(null, args);
-      }
-      else
-      {
-        switch (p)
-        {
-          case 2: args[1] = c;
-          case 1: args[0] = b;
-        }
-        return invoke(a, args);
-      }
+      if (isStatic) return invoke(null, p, a, b, c, null, null, null, null, null);
+      return invoke(a, p, b, c, null, null, null, null, null, null);
     }
 
     public Object call(Object a, Object b, Object c, Object d)
     {
       boolean isStatic = isStatic();
       int p = checkArgs(4, isStatic, false);
-      Object[] args = new Object[p];
-      if (isStatic)
-      {
-        switch (p)
-        {
-          case 4: args[3] = d;
-          case 3: args[2] = c;
-          case 2: args[1] = b;
-          case 1: args[0] = a;
-        }
-        return invoke(null, args);
-      }
-      else
-      {
-        switch (p)
-        {
-          case 3: args[2] = d;
-          case 2: args[1] = c;
-          case 1: args[0] = b;
-        }
-        return invoke(a, args);
-      }
+      if (isStatic) return invoke(null, p, a, b, c, d, null, null, null, null);
+      return invoke(a, p, b, c, d, null, null, null, null, null);
     }
 
     public Object call(Object a, Object b, Object c, Object d, Object e)
     {
       boolean isStatic = isStatic();
       int p = checkArgs(5, isStatic, false);
-      Object[] args = new Object[p];
-      if (isStatic)
-      {
-        switch (p)
-        {
-          case 5: args[4] = e;
-          case 4: args[3] = d;
-          case 3: args[2] = c;
-          case 2: args[1] = b;
-          case 1: args[0] = a;
-        }
-        return invoke(null, args);
-      }
-      else
-      {
-        switch (p)
-        {
-          case 4: args[3] = e;
-          case 3: args[2] = d;
-          case 2: args[1] = c;
-          case 1: args[0] = b;
-        }
-        return invoke(a, args);
-      }
+      if (isStatic) return invoke(null, p, a, b, c, d, e, null, null, null);
+      return invoke(a, p, b, c, d, e, null, null, null, null);
     }
 
     public Object call(Object a, Object b, Object c, Object d, Object e, Object f)
     {
       boolean isStatic = isStatic();
       int p = checkArgs(6, isStatic, false);
-      Object[] args = new Object[p];
-      if (isStatic)
-      {
-        switch (p)
-        {
-          case 6: args[5] = f;
-          case 5: args[4] = e;
-          case 4: args[3] = d;
-          case 3: args[2] = c;
-          case 2: args[1] = b;
-          case 1: args[0] = a;
-        }
-        return invoke(null, args);
-      }
-      else
-      {
-        switch (p)
-        {
-          case 5: args[4] = f;
-          case 4: args[3] = e;
-          case 3: args[2] = d;
-          case 2: args[1] = c;
-          case 1: args[0] = b;
-        }
-        return invoke(a, args);
-      }
+      if (isStatic) return invoke(null, p, a, b, c, d, e, f, null, null);
+      return invoke(a, p, b, c, d, e, f, null, null, null);
     }
 
     public Object call(Object a, Object b, Object c, Object d, Object e, Object f, Object g)
     {
       boolean isStatic = isStatic();
       int p = checkArgs(7, isStatic, false);
-      Object[] args = new Object[p];
-      if (isStatic)
-      {
-        switch (p)
-        {
-          case 7: args[6] = g;
-          case 6: args[5] = f;
-          case 5: args[4] = e;
-          case 4: args[3] = d;
-          case 3: args[2] = c;
-          case 2: args[1] = b;
-          case 1: args[0] = a;
-        }
-        return invoke(null, args);
-      }
-      else
-      {
-        switch (p)
-        {
-          case 6: args[5] = g;
-          case 5: args[4] = f;
-          case 4: args[3] = e;
-          case 3: args[2] = d;
-          case 2: args[1] = c;
-          case 1: args[0] = b;
-        }
-        return invoke(a, args);
-      }
+      if (isStatic) return invoke(null, p, a, b, c, d, e, f, g, null);
+      return invoke(a, p, b, c, d, e, f, g, null, null);
     }
 
     public Object call(Object a, Object b, Object c, Object d, Object e, Object f, Object g, Object h)
     {
       boolean isStatic = isStatic();
       int p = checkArgs(8, isStatic, false);
-      Object[] args = new Object[p];
-      if (isStatic)
-      {
-        switch (p)
-        {
-          case 8: args[7] = h;
-          case 7: args[6] = g;
-          case 6: args[5] = f;
-          case 5: args[4] = e;
-          case 4: args[3] = d;
-          case 3: args[2] = c;
-          case 2: args[1] = b;
-          case 1: args[0] = a;
-        }
-        return invoke(null, args);
-      }
-      else
-      {
-        switch (p)
-        {
-          case 7: args[6] = h;
-          case 6: args[5] = g;
-          case 5: args[4] = f;
-          case 4: args[3] = e;
-          case 3: args[2] = d;
-          case 2: args[1] = c;
-          case 1: args[0] = b;
-        }
-        return invoke(a, args);
-      }
+      if (isStatic) return invoke(null, p, a, b, c, d, e, f, g, h);
+      return invoke(a, p, b, c, d, e, f, g, h, null);
     }
 
     private boolean isStatic()
@@ -551,7 +388,99 @@ public class Method
   public Object invoke(Object instance, Object[] args)
   {
     if (reflect == null) parent.finish();
+    return reflectInvoke(instance, args);
+  }
+
+  /**
+   * Invoke with the first n of the args a-h; this is used by the
+   * MethodFunc.call methods to avoid allocating an args array.
+   */
+  Object invoke(Object instance, int n, Object a, Object b, Object c, Object d, Object e, Object f, Object g, Object h)
+  {
+    if (reflect == null) parent.finish();
+
+    if (Invoker.always && !parent.isJava())
+    {
+      Invoker inv = invoker(n);
+      if (inv != null) return inv.call(this, instance, a, b, c, d, e, f, g, h);
+    }
+
+    Object[] args = new Object[n];
+    switch (n)
+    {
+      case 8: args[7] = h;
+      case 7: args[6] = g;
+      case 6: args[5] = f;
+      case 5: args[4] = e;
+      case 4: args[3] = d;
+      case 3: args[2] = c;
+      case 2: args[1] = b;
+      case 1: args[0] = a;
+    }
+    return reflectInvoke(instance, args);
+  }
+
+  /**
+   * Get the Invoker that callOn would use for a call with argc
+   * args, or null if the call must go through callOn.  The invoker
+   * takes the target as its first arg if trapSelfArg is true.
+   */
+  Invoker trapInvoker(int argc)
+  {
+    if (parent.isJava()) return null;
+    parent.finish();
+    if (reflect == null) return null;
+
+    int max = params.sz();
+    int min = max-reflect.length+1;
+    if (argc < min) return null;
+    int p = argc <= max ? argc : max;
+    if (trapSelfArg()) p++;
+    if (p > 8) return null;
+    return invoker(p);
+  }
+
+  /**
+   * Is this a Fantom instance method implemented as a Java static
+   * which is passed the target as its first argument
+   */
+  boolean trapSelfArg()
+  {
+    return isInstance() && Modifier.isStatic(reflect[0].getModifiers());
+  }
+
+  /**
+   * Get the Invoker for a call with n args, or null if the call
+   * should be routed through reflection to report an error.
+   */
+  private Invoker invoker(int n)
+  {
+    if (reflect == null) return null;
+
+    // zero index is full signature up to using max defaults
+    int index = params.sz()-n;
+    if (parent.javaRepr() && isInstance()) index++;
+    if (index < 0 || index >= reflect.length) return null;
+
+    Invoker[] invokers = this.invokers;
+    if (invokers == null) this.invokers = invokers = new Invoker[reflect.length];
+    Invoker inv = invokers[index];
+    if (inv == null)
+    {
+      java.lang.reflect.Method jm = reflect[index];
+      if (jm == null)
+      {
+        fixReflect();
+        jm = reflect[index];
+      }
+      if (jm == null || jm.getParameterTypes().length != n) return null;
+      invokers[index] = inv = Invoker.make(jm);
+    }
+    return inv == Invoker.none ? null : inv;
+  }
 
+  private Object reflectInvoke(Object instance, Object[] args)
+  {
     java.lang.reflect.Method jm = null;
     try
     {
@@ -667,6 +596,131 @@ public class Method
     return "pdef$" + methodName + "$" + paramName;
   }
 
+//////////////////////////////////////////////////////////////////////////
+// Invoker
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Invoker binds one java.lang.reflect.Method to a MethodHandle adapted
+   * to take the instance (ignored if static) and Object args and return
+   * Object.  Calls through the handle skip reflection's per call access
+   * checks and args array.  We check the instance and arg types up front
+   * so that a mismatch still raises ArgErr rather than a CastErr from the
+   * handle's casts.  Calls with an args array always use reflection since
+   * spreading the array into the handle measured slower on every VM.
+   */
+  static final class Invoker
+  {
+    /**
+     * Calls through one handle site are megamorphic since it is shared
+     * by every method, and there a handle is ~10% faster than reflection
+     * on Java 17 and 21.  But on Java 17 a hot call of a single method is
+     * twice as fast through reflection's generated accessor, so before
+     * Java 18 (JEP 416) only TrapSite, whose calls of many methods in a
+     * real program always share the site, uses handles.  From Java 18 the
+     * fixed arity Method calls use them too.
+     */
+    static final boolean always = Sys.javaVersion >= 18;
+
+    static final Invoker none = new Invoker();
+
+    static Invoker make(java.lang.reflect.Method jm)
+    {
+      try
+      {
+        return new Invoker(jm);
+      }
+      catch (Throwable e)
+      {
+        return none;
+      }
+    }
+
+    private Invoker()
+    {
+      this.exact = null;
+      this.declaring = null;
+      this.params = this.boxed = null;
+      this.isStatic = false;
+    }
+
+    private Invoker(java.lang.reflect.Method jm) throws IllegalAccessException
+    {
+      Class[] params = jm.getParameterTypes();
+      Class[] boxed = new Class[params.length];
+      for (int i=0; i<params.length; ++i)
+        boxed[i] = MethodType.methodType(params[i]).wrap().returnType();
+
+      MethodHandle h = MethodHandles.lookup().unreflect(jm);
+      boolean isStatic = Modifier.isStatic(jm.getModifiers());
+      if (isStatic) h = MethodHandles.dropArguments(h, 0, Object.class);
+
+      this.exact     = h.asType(MethodType.genericMethodType(params.length+1));
+      this.declaring = jm.getDeclaringClass();
+      this.params    = params;
+      this.boxed     = boxed;
+      this.isStatic  = isStatic;
+    }
+
+    Object call(Method m, Object instance, Object a, Object b, Object c, Object d, Object e, Object f, Object g, Object h)
+    {
+      checkInstance(m, instance);
+      int n = params.length;
+      switch (n)
+      {
+        case 8: checkArg(m, 7, h);
+        case 7: checkArg(m, 6, g);
+        case 6: checkArg(m, 5, f);
+        case 5: checkArg(m, 4, e);
+        case 4: checkArg(m, 3, d);
+        case 3: checkArg(m, 2, c);
+        case 2: checkArg(m, 1, b);
+        case 1: checkArg(m, 0, a);
+      }
+      try
+      {
+        switch (n)
+        {
+          case 0: return exact.invokeExact(instance);
+          case 1: return exact.invokeExact(instance, a);
+          case 2: return exact.invokeExact(instance, a, b);
+          case 3: return exact.invokeExact(instance, a, b, c);
+          case 4: return exact.invokeExact(instance, a, b, c, d);
+          case 5: return exact.invokeExact(instance, a, b, c, d, e);
+          case 6: return exact.invokeExact(instance, a, b, c, d, e, f);
+          case 7: return exact.invokeExact(instance, a, b, c, d, e, f, g);
+          case 8: return exact.invokeExact(instance, a, b, c, d, e, f, g, h);
+          default: throw new IllegalStateException("arity " + n);
+        }
+      }
+      catch (Throwable x)
+      {
+        throw Err.make(x);
+      }
+    }
+
+    int arity() { return params.length; }
+
+    private void checkInstance(Method m, Object instance)
+    {
+      if (isStatic) return;
+      if (instance == null) throw Err.make("Cannot call method '" + m + "' with null instance");
+      if (!declaring.isInstance(instance)) throw ArgErr.make("Cannot call '" + m + "': object is not an instance of declaring class");
+    }
+
+    private void checkArg(Method m, int i, Object arg)
+    {
+      if (arg == null ? params[i].isPrimitive() : !boxed[i].isInstance(arg))
+        throw ArgErr.make("Cannot call '" + m + "': argument type mismatch");
+    }
+
+    private final MethodHandle exact;    // (instance, arg0..argN)Object
+    private final Class declaring;       // declaring class of instance methods
+    private final Class[] params;        // Java parameter types
+    private final Class[] boxed;         // params with primitives boxed
+    private final boolean isStatic;      // is Java method static
+  }
+
 //////////////////////////////////////////////////////////////////////////
 // Fields
 //////////////////////////////////////////////////////////////////////////
@@ -680,6 +734,7 @@ public class Method
   int mask;
   Method generic;
   java.lang.reflect.Method[] reflect;
+  private Invoker[] invokers;  // lazily bound handles parallel to reflect
   private int minParams = -1;
 
 }
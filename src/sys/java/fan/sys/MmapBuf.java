@@ -0,0 +1,539 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+package fan.sys;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * MmapBuf is used for File.mmap.  A single MappedByteBuffer is indexed
+ * by int and so is limited to 2GB; regions up to that size use one
+ * mapping and larger regions are mapped as a chain of 1GB segments
+ * addressed with long positions.  Closing the buffer
+ * unmaps every segment immediately rather than waiting on the garbage
+ * collector, so the file's address space is released deterministically.
+ * Once closed the buffer must not be used by any thread.
+ */
+public class MmapBuf
+  extends Buf
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Constructor
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Map the region [pos, pos+size) of the given channel.
+   */
+  static MmapBuf map(FileChannel chan, MapMode mode, long pos, long size)
+    throws IOException
+  {
+    if (pos < 0) throw ArgErr.make("Invalid pos: " + pos);
+    if (size < 0) throw ArgErr.make("Invalid size: " + size);
+
+    // a single mapping holds up to 2^31-1 bytes which we address
+    // with a 31 bit shift so every position lands in segment zero
+    int shift = size <= Integer.MAX_VALUE ? 31 : SEG_SHIFT;
+    long segSize = shift == 31 ? Integer.MAX_VALUE : SEG_SIZE;
+    int num = (int)((size + segSize - 1) / segSize);
+    MappedByteBuffer[] segs = new MappedByteBuffer[num];
+    try
+    {
+      for (int i=0; i<num; ++i)
+      {
+        long off = (long)i << shift;
+        segs[i] = chan.map(mode, pos + off, Math.min(segSize, size - off));
+      }
+    }
+    catch (IOException e)
+    {
+      unmapAll(segs);
+      throw e;
+    }
+    return new MmapBuf(segs, shift, size);
+  }
+
+  private MmapBuf(MappedByteBuffer[] segs, int shift, long size)
+  {
+    this.segs     = segs;
+    this.shift    = shift;
+    this.mask     = (1L << shift) - 1;
+    this.size     = size;
+    this.capacity = size;
+    this.out      = new MmapBufOutStream();
+    this.in       = new MmapBufInStream();
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Obj
+//////////////////////////////////////////////////////////////////////////
+
+  public Type typeof() { return Sys.MmapBufType; }
+
+//////////////////////////////////////////////////////////////////////////
+// Segments
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Get the segment containing the given position.
+   */
+  private MappedByteBuffer seg(long pos)
+  {
+    MappedByteBuffer[] segs = this.segs;
+    if (segs == null) throw IOErr.make("MmapBuf is closed");
+    return segs[(int)(pos >>> shift)];
+  }
+
+  /**
+   * Get the segment containing pos with its position set to pos and
+   * its limit set to the lesser of len bytes or the end of the segment.
+   */
+  private MappedByteBuffer window(long pos, long len)
+  {
+    MappedByteBuffer seg = seg(pos);
+    int off = (int)(pos & mask);
+    int cap = seg.capacity();
+    seg.limit(cap);
+    seg.position(off);
+    seg.limit(off + (int)Math.min(len, cap - off));
+    return seg;
+  }
+
+  /**
+   * Check that len bytes may be written at the current position.
+   */
+  private void checkWrite(long len)
+  {
+    if (pos + len > size) throw IOErr.make("MmapBuf is full");
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Buf Support
+//////////////////////////////////////////////////////////////////////////
+
+  public final long size()
+  {
+    return size;
+  }
+
+  public final void size(long x)
+  {
+    if (x < 0 || x > capacity) throw ArgErr.make("Invalid size: " + x);
+    size = x;
+    if (pos > x) pos = x;
+  }
+
+  public final long pos()
+  {
+    return pos;
+  }
+
+  final void pos(long x)
+  {
+    pos = x;
+  }
+
+  public final int getByte(long pos)
+  {
+    return seg(pos).get((int)(pos & mask)) & 0xff;
+  }
+
+  public final void setByte(long pos, int x)
+  {
+    seg(pos).put((int)(pos & mask), (byte)x);
+  }
+
+  public final void getBytes(long pos, byte[] dst, int off, int len)
+  {
+    while (len > 0)
+    {
+      MappedByteBuffer seg = window(pos, len);
+      int n = seg.remaining();
+      seg.get(dst, off, n);
+      pos += n; off += n; len -= n;
+    }
+  }
+
+  public final void pipeTo(byte[] dst, int dstPos, int len)
+  {
+    getBytes(pos, dst, dstPos, len);
+    pos += len;
+  }
+
+  public final void pipeTo(OutputStream dst, long len)
+    throws IOException
+  {
+    byte[] temp = temp();
+    while (len > 0)
+    {
+      int n = (int)Math.min(temp.length, len);
+      getBytes(pos, temp, 0, n);
+      dst.write(temp, 0, n);
+      pos += n; len -= n;
+    }
+  }
+
+  public final void pipeTo(RandomAccessFile dst, long len)
+    throws IOException
+  {
+    FileChannel chan = dst.getChannel();
+    while (len > 0)
+    {
+      MappedByteBuffer seg = window(pos, len);
+      int n = seg.remaining();
+      while (seg.hasRemaining()) chan.write(seg);
+      pos += n; len -= n;
+    }
+  }
+
+  public final void pipeTo(ByteBuffer dst, int len)
+  {
+    while (len > 0)
+    {
+      MappedByteBuffer seg = window(pos, len);
+      int n = seg.remaining();
+      dst.put(seg);
+      pos += n; len -= n;
+    }
+  }
+
+  public final void pipeFrom(byte[] src, int srcPos, int len)
+  {
+    checkWrite(len);
+    while (len > 0)
+    {
+      MappedByteBuffer seg = window(pos, len);
+      int n = seg.remaining();
+      seg.put(src, srcPos, n);
+      pos += n; srcPos += n; len -= n;
+    }
+  }
+
+  public final long pipeFrom(InputStream src, long len)
+    throws IOException
+  {
+    checkWrite(len);
+    byte[] temp = temp();
+    long total = 0;
+    while (total < len)
+    {
+      int n = src.read(temp, 0, (int)Math.min(temp.length, len-total));
+      if (n < 0) return total == 0 ? -1 : total;
+      pipeFrom(temp, 0, n);
+      total += n;
+    }
+    return total;
+  }
+
+  public final long pipeFrom(RandomAccessFile src, long len)
+    throws IOException
+  {
+    checkWrite(len);
+    FileChannel chan = src.getChannel();
+    long total = 0;
+    while (total < len)
+    {
+      int n = chan.read(window(pos, len-total));
+      if (n < 0) return total == 0 ? -1 : total;
+      pos += n;
+      total += n;
+    }
+    return total;
+  }
+
+  public final int pipeFrom(ByteBuffer src, int len)
+  {
+    checkWrite(len);
+    int oldLimit = src.limit();
+    int total = 0;
+    try
+    {
+      while (total < len)
+      {
+        MappedByteBuffer seg = window(pos, len-total);
+        int n = seg.remaining();
+        src.limit(src.position() + n);
+        seg.put(src);
+        pos += n; total += n;
+      }
+    }
+    finally
+    {
+      src.limit(oldLimit);
+    }
+    return total;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Buf API
+//////////////////////////////////////////////////////////////////////////
+
+  public long capacity()
+  {
+    return capacity;
+  }
+
+  public void capacity(long x)
+  {
+    throw UnsupportedErr.make("mmap capacity fixed");
+  }
+
+  public Buf sync()
+  {
+    MappedByteBuffer[] segs = this.segs;
+    if (segs == null) throw IOErr.make("MmapBuf is closed");
+    for (int i=0; i<segs.length; ++i) segs[i].force();
+    return this;
+  }
+
+  public boolean close()
+  {
+    MappedByteBuffer[] segs = this.segs;
+    if (segs == null) return true;
+    this.segs = null;
+    this.size = this.pos = this.capacity = 0;
+    return unmapAll(segs);
+  }
+
+  public final String toHex()
+  {
+    throw UnsupportedErr.make();
+  }
+
+  public Buf toDigest(String algorithm)
+  {
+    throw UnsupportedErr.make();
+  }
+
+  public ByteBuffer toByteBuffer()
+  {
+    MappedByteBuffer[] segs = this.segs;
+    if (segs == null) throw IOErr.make("MmapBuf is closed");
+    if (segs.length > 1) throw UnsupportedErr.make("MmapBuf.toByteBuffer larger than " + Integer.MAX_VALUE);
+    if (segs.length == 0) return ByteBuffer.allocate(0);
+    ByteBuffer dup = segs[0].duplicate();
+    dup.limit((int)size);
+    dup.position((int)pos);
+    return dup;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Unmap
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Unmap each segment, return false if any could not be unmapped.
+   */
+  private static boolean unmapAll(MappedByteBuffer[] segs)
+  {
+    boolean ok = true;
+    for (int i=0; i<segs.length; ++i)
+    {
+      if (segs[i] == null) continue;
+      ok &= unmap(segs[i]);
+      segs[i] = null;
+    }
+    return ok;
+  }
+
+  /**
+   * Release a mapping now instead of when it is garbage collected.
+   * Java 9+ exposes this as Unsafe.invokeCleaner; on Java 8 we have to
+   * call DirectBuffer.cleaner().clean().  Both are bound reflectively.
+   */
+  private static boolean unmap(MappedByteBuffer buf)
+  {
+    try
+    {
+      if (unsafe != null)
+      {
+        invokeCleaner.invoke(unsafe, new Object[] { buf });
+      }
+      else
+      {
+        java.lang.reflect.Method m = buf.getClass().getMethod("cleaner");
+        m.setAccessible(true);
+        Object cleaner = m.invoke(buf);
+        if (cleaner != null) cleaner.getClass().getMethod("clean").invoke(cleaner);
+      }
+      return true;
+    }
+    catch (Throwable e)
+    {
+      return false;
+    }
+  }
+
+  private static Object unsafe;
+  private static java.lang.reflect.Method invokeCleaner;
+  static
+  {
+    try
+    {
+      Class cls = Class.forName("sun.misc.Unsafe");
+      java.lang.reflect.Method m = cls.getMethod("invokeCleaner", new Class[] { ByteBuffer.class });
+      java.lang.reflect.Field f = cls.getDeclaredField("theUnsafe");
+      f.setAccessible(true);
+      unsafe = f.get(null);
+      invokeCleaner = m;
+    }
+    catch (Throwable e)
+    {
+      // Java 8
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Utils
+//////////////////////////////////////////////////////////////////////////
+
+  public final InStream i() { return in; }
+
+  public final OutStream o() { return out; }
+
+  final byte[] temp()
+  {
+    if (temp == null) temp = new byte[8192];
+    return temp;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// MmapBufOutStream
+//////////////////////////////////////////////////////////////////////////
+
+  class MmapBufOutStream extends OutStream
+  {
+    public final OutStream write(long v) { return w((int)v); }
+    public final OutStream w(int v)
+    {
+      checkWrite(1);
+      setByte(pos++, v);
+      return this;
+    }
+
+    public OutStream writeBuf(Buf other, long n)
+    {
+      checkWrite(n);
+      while (n > 0)
+      {
+        MappedByteBuffer seg = window(pos, n);
+        int len = seg.remaining();
+        other.pipeTo(seg, len);
+        pos += len; n -= len;
+      }
+      return this;
+    }
+
+    public OutStream writeChar(long c)
+    {
+      charsetEncoder.encode((char)c, this);
+      return this;
+    }
+
+    public OutStream writeChar(char c)
+    {
+      charsetEncoder.encode(c, this);
+      return this;
+    }
+
+    public OutStream flush()
+    {
+      MmapBuf.this.flush();
+      return this;
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// MmapBufInStream
+//////////////////////////////////////////////////////////////////////////
+
+  class MmapBufInStream extends InStream
+  {
+    public Long read() { int n = r(); return n < 0 ? null : FanInt.pos[n]; }
+    public int r()
+    {
+      if (pos >= size) return -1;
+      return getByte(pos++);
+    }
+
+    public Long readBuf(Buf other, long n)
+    {
+      long left = size - pos;
+      if (left <= 0) return null;
+      if (left < n) n = left;
+      long total = 0;
+      while (total < n)
+      {
+        MappedByteBuffer seg = window(pos, n-total);
+        int len = seg.remaining();
+        int read = other.pipeFrom(seg, len);
+        if (read < 0) break;
+        pos += read; total += read;
+        if (read < len) break;
+      }
+      return Long.valueOf(total);
+    }
+
+    public InStream unread(long n) { return unread((int)n); }
+    public InStream unread(int n)
+    {
+      setByte(--pos, n);
+      return this;
+    }
+
+    public Long peek()
+    {
+      if (pos >= size) return null;
+      return FanInt.pos[getByte(pos)];
+    }
+
+    public long skip(long n)
+    {
+      long left = size - pos;
+      if (n > left) n = left;
+      if (n <= 0) return 0;
+      pos += n;
+      return n;
+    }
+
+    int readAscii(StringBuilder sb, int max, boolean[] stops)
+    {
+      if (pos >= size) return 0;
+
+      // scan up to the end of the current segment with absolute gets
+      MappedByteBuffer seg = seg(pos);
+      int start = (int)(pos & mask);
+      int end = (int)Math.min(seg.capacity(), start + Math.min((long)max, size - pos));
+      int i;
+      for (i = start; i < end; ++i)
+      {
+        int b = seg.get(i);
+        if (b < 0 || (stops != null && stops[b])) break;
+        sb.append((char)b);
+      }
+      pos += i - start;
+      return i - start;
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  static final int SEG_SHIFT = 30;
+  static final long SEG_SIZE = 1L << SEG_SHIFT;
+
+  private MappedByteBuffer[] segs;   // mapped regions, null once closed
+  private final int shift;           // log2 of segment addressing
+  private final long mask;           // offset within a segment
+  private long size;                 // logical size
+  private long pos;                  // current position
+  private long capacity;             // mapped size
+  private byte[] temp;
+  private MmapBufInStream in;
+  private MmapBufOutStream out;
+}
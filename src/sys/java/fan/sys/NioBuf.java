@@ -304,6 +304,31 @@ public class NioBuf
     {
       return FanInt.pos[buf.get(buf.position())];
     }
+
+    int readAscii(StringBuilder sb, int max, boolean[] stops)
+    {
+      int start = buf.position();
+      int end = Math.min(buf.limit(), start + Math.min(max, buf.remaining()));
+      int i;
+      if (buf.hasArray())
+      {
+        // scan the backing array directly
+        int off = buf.arrayOffset();
+        i = appendAscii(buf.array(), off + start, off + end, sb, stops) - off;
+      }
+      else
+      {
+        // direct and mapped buffers use absolute gets
+        for (i = start; i < end; ++i)
+        {
+          int b = buf.get(i);
+          if (b < 0 || (stops != null && stops[b])) break;
+          sb.append((char)b);
+        }
+      }
+      buf.position(i);
+      return i - start;
+    }
   }
 
 //////////////////////////////////////////////////////////////////////////
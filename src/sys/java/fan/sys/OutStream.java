@@ -308,6 +308,21 @@ public class OutStream
     return this;
   }
 
+  /**
+   * Return the end of the next chunk of at most max chars
+   * for bulk encoding which never splits a surrogate pair.
+   */
+  static int chunkEnd(String s, int off, int end, int max)
+  {
+    if (end - off <= max) return end;
+    int chunkEnd = off + max;
+    if (Character.isHighSurrogate(s.charAt(chunkEnd-1))) chunkEnd++;
+    return chunkEnd;
+  }
+
+  /** Max chars to bulk encode at a time */
+  static final int charsChunk = 8192;
+
   public OutStream print(Object obj)
   {
     String s = obj == null ? "null" : toStr(obj);
@@ -0,0 +1,457 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+package fan.sys;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * PersistentMap is the backing store for the immutable maps returned by
+ * Map.withSet and withRemove.  It is a hash array mapped trie: each node
+ * uses 5 bits of the key's hash to pick a slot from a 32 bit bitmap and
+ * stores only the occupied slots in a dense array of key/value pairs,
+ * where a null key means the value is a sub-node.  Keys with identical
+ * hashes share a collision node.  Updates copy only the path to the
+ * changed slot, so each new version costs O(log32 n) and shares every
+ * other node with the map it was derived from.
+ *
+ * We subclass HashMap only so that it can be used as a Map's backing
+ * store; none of HashMap's own storage is used, and all the mutators
+ * throw UnsupportedOperationException.
+ */
+final class PersistentMap extends HashMap
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  static final PersistentMap empty = new PersistentMap(null, 0);
+
+  /**
+   * Build a persistent map with the same pairs as the given map
+   */
+  static PersistentMap make(Iterator pairs)
+  {
+    Node root = null;
+    int size = 0;
+    boolean[] added = new boolean[1];
+    while (pairs.hasNext())
+    {
+      Entry e = (Entry)pairs.next();
+      Object key = e.getKey();
+      added[0] = false;
+      root = assoc(root, 0, hash(key), key, e.getValue(), added);
+      if (added[0]) ++size;
+    }
+    return size == 0 ? empty : new PersistentMap(root, size);
+  }
+
+  private PersistentMap(Node root, int size)
+  {
+    this.root = root;
+    this.size = size;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Persistent
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Return a new map with key mapped to val
+   */
+  PersistentMap with(Object key, Object val)
+  {
+    boolean[] added = new boolean[1];
+    Node r = assoc(root, 0, hash(key), key, val, added);
+    if (r == root) return this;
+    return new PersistentMap(r, added[0] ? size+1 : size);
+  }
+
+  /**
+   * Return a new map without key
+   */
+  PersistentMap without(Object key)
+  {
+    if (root == null) return this;
+    Node r = root.without(0, hash(key), key);
+    if (r == root) return this;
+    return r == null ? empty : new PersistentMap(r, size-1);
+  }
+
+  private static Node assoc(Node node, int shift, int hash, Object key, Object val, boolean[] added)
+  {
+    if (node == null)
+    {
+      added[0] = true;
+      return new BitmapNode(bit(hash, shift), new Object[] { key, val });
+    }
+    return node.assoc(shift, hash, key, val, added);
+  }
+
+  static int hash(Object key)
+  {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private static int bit(int hash, int shift)
+  {
+    return 1 << ((hash >>> shift) & 31);
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Nodes
+//////////////////////////////////////////////////////////////////////////
+
+  abstract static class Node
+  {
+    Node(Object[] array) { this.array = array; }
+
+    /** Get value mapped by key or notFound */
+    abstract Object find(int shift, int hash, Object key, Object notFound);
+
+    /** Return node with key mapped to val, or this if unchanged */
+    abstract Node assoc(int shift, int hash, Object key, Object val, boolean[] added);
+
+    /** Return node without key, this if not found, or null if empty */
+    abstract Node without(int shift, int hash, Object key);
+
+    final Object[] array;  // key/val pairs; null key means val is sub-node
+  }
+
+  static final class BitmapNode extends Node
+  {
+    BitmapNode(int bitmap, Object[] array)
+    {
+      super(array);
+      this.bitmap = bitmap;
+    }
+
+    private int index(int bit)
+    {
+      return 2 * Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    Object find(int shift, int hash, Object key, Object notFound)
+    {
+      int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) return notFound;
+      int i = index(bit);
+      Object k = array[i];
+      if (k == null) return ((Node)array[i+1]).find(shift+5, hash, key, notFound);
+      return key.equals(k) ? array[i+1] : notFound;
+    }
+
+    Node assoc(int shift, int hash, Object key, Object val, boolean[] added)
+    {
+      int bit = bit(hash, shift);
+      int i = index(bit);
+
+      // empty slot, insert new pair
+      if ((bitmap & bit) == 0)
+      {
+        added[0] = true;
+        Object[] a = new Object[array.length+2];
+        System.arraycopy(array, 0, a, 0, i);
+        a[i] = key;
+        a[i+1] = val;
+        System.arraycopy(array, i, a, i+2, array.length-i);
+        return new BitmapNode(bitmap | bit, a);
+      }
+
+      Object k = array[i];
+      Object v = array[i+1];
+
+      // sub-node
+      if (k == null)
+      {
+        Node sub = ((Node)v).assoc(shift+5, hash, key, val, added);
+        return sub == v ? this : replace(i+1, sub);
+      }
+
+      // same key, replace value
+      if (key.equals(k))
+        return v == val ? this : replace(i+1, val);
+
+      // different key in slot, push both down into a sub-node
+      added[0] = true;
+      int kh = hash(k);
+      Node sub;
+      if (kh == hash)
+        sub = new CollisionNode(hash, new Object[] { k, v, key, val });
+      else
+        sub = PersistentMap.assoc(PersistentMap.assoc(null, shift+5, kh, k, v, added), shift+5, hash, key, val, added);
+      Object[] a = array.clone();
+      a[i] = null;
+      a[i+1] = sub;
+      return new BitmapNode(bitmap, a);
+    }
+
+    Node without(int shift, int hash, Object key)
+    {
+      int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) return this;
+      int i = index(bit);
+      Object k = array[i];
+      if (k == null)
+      {
+        Node sub = ((Node)array[i+1]).without(shift+5, hash, key);
+        if (sub == array[i+1]) return this;
+        if (sub != null) return replace(i+1, sub);
+      }
+      else if (!key.equals(k))
+      {
+        return this;
+      }
+
+      // remove the slot entirely
+      if (bitmap == bit) return null;
+      Object[] a = new Object[array.length-2];
+      System.arraycopy(array, 0, a, 0, i);
+      System.arraycopy(array, i+2, a, i, array.length-i-2);
+      return new BitmapNode(bitmap ^ bit, a);
+    }
+
+    private Node replace(int i, Object x)
+    {
+      Object[] a = array.clone();
+      a[i] = x;
+      return new BitmapNode(bitmap, a);
+    }
+
+    final int bitmap;  // which of the 32 slots are occupied
+  }
+
+  static final class CollisionNode extends Node
+  {
+    CollisionNode(int hash, Object[] array)
+    {
+      super(array);
+      this.hash = hash;
+    }
+
+    private int index(Object key)
+    {
+      for (int i=0; i<array.length; i+=2)
+        if (key.equals(array[i])) return i;
+      return -1;
+    }
+
+    Object find(int shift, int hash, Object key, Object notFound)
+    {
+      int i = index(key);
+      return i < 0 ? notFound : array[i+1];
+    }
+
+    Node assoc(int shift, int hash, Object key, Object val, boolean[] added)
+    {
+      // different hash, nest this node under a bitmap node
+      if (hash != this.hash)
+        return new BitmapNode(bit(this.hash, shift), new Object[] { null, this }).assoc(shift, hash, key, val, added);
+
+      int i = index(key);
+      if (i >= 0)
+      {
+        if (array[i+1] == val) return this;
+        Object[] a = array.clone();
+        a[i+1] = val;
+        return new CollisionNode(hash, a);
+      }
+
+      added[0] = true;
+      Object[] a = new Object[array.length+2];
+      System.arraycopy(array, 0, a, 0, array.length);
+      a[array.length] = key;
+      a[array.length+1] = val;
+      return new CollisionNode(hash, a);
+    }
+
+    Node without(int shift, int hash, Object key)
+    {
+      int i = index(key);
+      if (i < 0) return this;
+      if (array.length == 2) return null;
+      Object[] a = new Object[array.length-2];
+      System.arraycopy(array, 0, a, 0, i);
+      System.arraycopy(array, i+2, a, i, array.length-i-2);
+      return new CollisionNode(hash, a);
+    }
+
+    final int hash;  // shared hash of all keys
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// HashMap
+//////////////////////////////////////////////////////////////////////////
+
+  public int size() { return size; }
+
+  public boolean isEmpty() { return size == 0; }
+
+  public Object get(Object key)
+  {
+    if (root == null || key == null) return null;
+    return root.find(0, hash(key), key, null);
+  }
+
+  public Object getOrDefault(Object key, Object def)
+  {
+    if (root == null || key == null) return def;
+    return root.find(0, hash(key), key, def);
+  }
+
+  public boolean containsKey(Object key)
+  {
+    if (root == null || key == null) return false;
+    return root.find(0, hash(key), key, notFound) != notFound;
+  }
+
+  public boolean containsValue(Object val)
+  {
+    for (Iterator it = new Itr(VALS); it.hasNext(); )
+    {
+      Object v = it.next();
+      if (val == null ? v == null : val.equals(v)) return true;
+    }
+    return false;
+  }
+
+  public void forEach(BiConsumer f)
+  {
+    Itr it = new Itr(KEYS);
+    while (it.hasNext())
+    {
+      Object k = it.next();
+      f.accept(k, it.val);
+    }
+  }
+
+  public Set entrySet()
+  {
+    return new AbstractSet()
+    {
+      public int size() { return size; }
+      public Iterator iterator() { return new Itr(ENTRIES); }
+    };
+  }
+
+  public Set keySet()
+  {
+    return new AbstractSet()
+    {
+      public int size() { return size; }
+      public boolean contains(Object k) { return containsKey(k); }
+      public Iterator iterator() { return new Itr(KEYS); }
+    };
+  }
+
+  public Collection values()
+  {
+    return new AbstractCollection()
+    {
+      public int size() { return size; }
+      public Iterator iterator() { return new Itr(VALS); }
+    };
+  }
+
+  public Object put(Object key, Object val) { throw new UnsupportedOperationException(); }
+  public void putAll(java.util.Map m) { throw new UnsupportedOperationException(); }
+  public Object putIfAbsent(Object key, Object val) { throw new UnsupportedOperationException(); }
+  public Object remove(Object key) { throw new UnsupportedOperationException(); }
+  public boolean remove(Object key, Object val) { throw new UnsupportedOperationException(); }
+  public void clear() { throw new UnsupportedOperationException(); }
+  public boolean replace(Object key, Object oldVal, Object newVal) { throw new UnsupportedOperationException(); }
+  public Object replace(Object key, Object val) { throw new UnsupportedOperationException(); }
+  public Object computeIfAbsent(Object key, Function f) { throw new UnsupportedOperationException(); }
+  public Object computeIfPresent(Object key, BiFunction f) { throw new UnsupportedOperationException(); }
+  public Object compute(Object key, BiFunction f) { throw new UnsupportedOperationException(); }
+  public Object merge(Object key, Object val, BiFunction f) { throw new UnsupportedOperationException(); }
+  public void replaceAll(BiFunction f) { throw new UnsupportedOperationException(); }
+
+//////////////////////////////////////////////////////////////////////////
+// Iterator
+//////////////////////////////////////////////////////////////////////////
+
+  static final int KEYS = 0, VALS = 1, ENTRIES = 2;
+
+  /**
+   * Depth first walk of the trie using an explicit stack of node
+   * arrays; the max depth is 7 bitmap levels plus a collision node.
+   */
+  private class Itr implements Iterator
+  {
+    Itr(int mode)
+    {
+      this.mode = mode;
+      if (root != null) arrays[0] = root.array;
+      else depth = -1;
+      advance();
+    }
+
+    public boolean hasNext() { return key != null; }
+
+    public Object next()
+    {
+      if (key == null) throw new NoSuchElementException();
+      Object k = key;
+      val = nextVal;
+      advance();
+      if (mode == KEYS) return k;
+      if (mode == VALS) return val;
+      return new SimpleImmutableEntry(k, val);
+    }
+
+    private void advance()
+    {
+      while (depth >= 0)
+      {
+        Object[] a = arrays[depth];
+        int i = pos[depth];
+        if (i >= a.length) { --depth; continue; }
+        pos[depth] = i + 2;
+        if (a[i] == null)
+        {
+          ++depth;
+          arrays[depth] = ((Node)a[i+1]).array;
+          pos[depth] = 0;
+          continue;
+        }
+        key = a[i];
+        nextVal = a[i+1];
+        return;
+      }
+      key = null;
+    }
+
+    private final int mode;
+    private final Object[][] arrays = new Object[10][];
+    private final int[] pos = new int[10];
+    private int depth;
+    private Object key;      // next key or null if done
+    private Object nextVal;  // next val
+    Object val;              // val of last key returned by next
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private static final Object notFound = new Object();
+
+  private final Node root;  // null if empty
+  private final int size;   // number of pairs
+
+}
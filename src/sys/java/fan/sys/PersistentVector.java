@@ -0,0 +1,417 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+package fan.sys;
+
+/**
+ * PersistentVector is the backing store for the immutable lists returned
+ * by List.withAdd, withInsert, withSet, and withRemoveAt.  It is a size
+ * annotated B-tree: leaves are Object[] of up to 32 items and branches
+ * hold up to 32 kids with their cumulative sizes (as in an RRB vector).
+ * Every update copies only the path from root to leaf, so each version
+ * costs O(log32 n) and shares all other nodes with the previous version.
+ * Unlike a pure radix trie the size annotations let us insert and remove
+ * anywhere, not just at the tail.  Non-root nodes are kept at least half
+ * full by splitting on overflow and merging or rebalancing with a
+ * sibling on underflow.
+ */
+final class PersistentVector
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  static final PersistentVector empty = new PersistentVector(new Object[0], 0, 0);
+
+  /**
+   * Build a vector from the first n items of the given array bottom up.
+   * Each level is split into evenly sized nodes so none underflow.
+   */
+  static PersistentVector make(Object[] items, int n)
+  {
+    if (n == 0) return empty;
+
+    // leaves, then group each level into branches until one root
+    Object[] level = chunk(items, n);
+    int height = 0;
+    while (level.length > 1)
+    {
+      ++height;
+      Object[] groups = chunk(level, level.length);
+      for (int i=0; i<groups.length; ++i)
+        groups[i] = new Branch((Object[])groups[i], height);
+      level = groups;
+    }
+    return new PersistentVector(level[0], n, height);
+  }
+
+  /**
+   * Split the first n items into ceil(n/M) arrays of near equal length
+   */
+  private static Object[] chunk(Object[] items, int n)
+  {
+    int count = (n + M - 1) / M;
+    Object[] chunks = new Object[count];
+    int off = 0;
+    for (int i=0; i<count; ++i)
+    {
+      int len = n / count + (i < n % count ? 1 : 0);
+      Object[] c = new Object[len];
+      System.arraycopy(items, off, c, 0, len);
+      chunks[i] = c;
+      off += len;
+    }
+    return chunks;
+  }
+
+  private PersistentVector(Object root, int size, int height)
+  {
+    this.root   = root;
+    this.size   = size;
+    this.height = height;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Access
+//////////////////////////////////////////////////////////////////////////
+
+  int size() { return size; }
+
+  Object get(int i)
+  {
+    if (i < 0 || i >= size) throw new ArrayIndexOutOfBoundsException(i);
+    Object node = root;
+    for (int h=height; h>0; --h)
+    {
+      Branch b = (Branch)node;
+      int k = b.slot(i);
+      if (k > 0) i -= b.sizes[k-1];
+      node = b.kids[k];
+    }
+    return ((Object[])node)[i];
+  }
+
+  /**
+   * Copy len items starting at index from into the array at off.
+   * We walk down to the first leaf once and then copy whole leaves,
+   * skipping the subtrees outside the range.
+   */
+  void copyTo(int from, Object[] a, int off, int len)
+  {
+    if (from < 0 || len < 0 || from+len > size) throw new ArrayIndexOutOfBoundsException(from+len);
+    if (len > 0) copyTo(root, height, from, a, off, len);
+  }
+
+  private static void copyTo(Object node, int h, int from, Object[] a, int off, int len)
+  {
+    if (h == 0)
+    {
+      System.arraycopy((Object[])node, from, a, off, len);
+      return;
+    }
+    Branch b = (Branch)node;
+    int k = b.slot(from);
+    int start = k > 0 ? b.sizes[k-1] : 0;
+    while (len > 0)
+    {
+      int n = Math.min(len, b.sizes[k] - from);
+      copyTo(b.kids[k], h-1, from - start, a, off, n);
+      off += n;
+      len -= n;
+      from += n;
+      start = b.sizes[k++];
+    }
+  }
+
+  /**
+   * Get the leaf holding index i.  Iterating callers keep the
+   * leaf and only walk the tree again once they step off it.
+   */
+  Leaf leaf(int i)
+  {
+    if (i < 0 || i >= size) throw new ArrayIndexOutOfBoundsException(i);
+    Object node = root;
+    int start = 0;
+    for (int h=height; h>0; --h)
+    {
+      Branch b = (Branch)node;
+      int k = b.slot(i - start);
+      if (k > 0) start += b.sizes[k-1];
+      node = b.kids[k];
+    }
+    return new Leaf(start, (Object[])node);
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Updates
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Return a new vector with the item at index i replaced
+   */
+  PersistentVector set(int i, Object val)
+  {
+    if (i < 0 || i >= size) throw new ArrayIndexOutOfBoundsException(i);
+    return new PersistentVector(set(root, height, i, val), size, height);
+  }
+
+  private static Object set(Object node, int h, int i, Object val)
+  {
+    if (h == 0)
+    {
+      Object[] leaf = ((Object[])node).clone();
+      leaf[i] = val;
+      return leaf;
+    }
+    Branch b = (Branch)node;
+    int k = b.slot(i);
+    Object[] kids = b.kids.clone();
+    kids[k] = set(kids[k], h-1, k > 0 ? i - b.sizes[k-1] : i, val);
+    return new Branch(kids, b.sizes);
+  }
+
+  /**
+   * Return a new vector with val inserted at index i where i may be size
+   */
+  PersistentVector insert(int i, Object val)
+  {
+    if (i < 0 || i > size) throw new ArrayIndexOutOfBoundsException(i);
+    Object[] split = new Object[1];
+    Object node = insert(root, height, i, val, split);
+    if (split[0] == null) return new PersistentVector(node, size+1, height);
+    return new PersistentVector(new Branch(new Object[] { node, split[0] }, height+1), size+1, height+1);
+  }
+
+  /**
+   * Insert into the subtree and return its replacement.  If the node
+   * overflows then the replacement is the left half and the right half
+   * is returned in split[0].
+   */
+  private static Object insert(Object node, int h, int i, Object val, Object[] split)
+  {
+    Object[] items;
+    if (h == 0)
+    {
+      Object[] leaf = (Object[])node;
+      items = new Object[leaf.length+1];
+      System.arraycopy(leaf, 0, items, 0, i);
+      items[i] = val;
+      System.arraycopy(leaf, i, items, i+1, leaf.length-i);
+    }
+    else
+    {
+      Branch b = (Branch)node;
+      int k = b.insertSlot(i);
+      Object kid = insert(b.kids[k], h-1, k > 0 ? i - b.sizes[k-1] : i, val, split);
+      Object right = split[0];
+      split[0] = null;
+      int n = b.kids.length;
+      if (right == null)
+      {
+        items = b.kids.clone();
+        items[k] = kid;
+      }
+      else
+      {
+        items = new Object[n+1];
+        System.arraycopy(b.kids, 0, items, 0, k);
+        items[k] = kid;
+        items[k+1] = right;
+        System.arraycopy(b.kids, k+1, items, k+2, n-k-1);
+      }
+    }
+
+    if (items.length <= M) return node(items, h);
+    int half = items.length / 2;
+    split[0] = node(copy(items, half, items.length), h);
+    return node(copy(items, 0, half), h);
+  }
+
+  /**
+   * Return a new vector with the item at index i removed
+   */
+  PersistentVector remove(int i)
+  {
+    if (i < 0 || i >= size) throw new ArrayIndexOutOfBoundsException(i);
+    if (size == 1) return empty;
+    Object node = remove(root, height, i);
+    int h = height;
+    while (h > 0 && ((Branch)node).kids.length == 1)
+    {
+      node = ((Branch)node).kids[0];
+      --h;
+    }
+    return new PersistentVector(node, size-1, h);
+  }
+
+  private static Object remove(Object node, int h, int i)
+  {
+    if (h == 0)
+    {
+      Object[] leaf = (Object[])node;
+      Object[] items = new Object[leaf.length-1];
+      System.arraycopy(leaf, 0, items, 0, i);
+      System.arraycopy(leaf, i+1, items, i, leaf.length-i-1);
+      return items;
+    }
+
+    Branch b = (Branch)node;
+    int k = b.slot(i);
+    Object kid = remove(b.kids[k], h-1, k > 0 ? i - b.sizes[k-1] : i);
+    Object[] kids = b.kids;
+    int n = kids.length;
+
+    // if the kid is still at least half full just replace it
+    Object[] kidItems = items(kid, h-1);
+    if (kidItems.length >= MIN || n == 1)
+    {
+      if (kidItems.length == 0) return node(copyWithout(kids, k), h);
+      kids = kids.clone();
+      kids[k] = kid;
+      return new Branch(kids, h);
+    }
+
+    // otherwise merge with or borrow from a sibling
+    int left = k > 0 ? k-1 : k;
+    Object[] a = left == k ? kidItems : items(kids[left], h-1);
+    Object[] b2 = left == k ? items(kids[k+1], h-1) : kidItems;
+    Object[] both = new Object[a.length + b2.length];
+    System.arraycopy(a, 0, both, 0, a.length);
+    System.arraycopy(b2, 0, both, a.length, b2.length);
+
+    Object[] result;
+    if (both.length <= M)
+    {
+      result = new Object[n-1];
+      System.arraycopy(kids, 0, result, 0, left);
+      result[left] = node(both, h-1);
+      System.arraycopy(kids, left+2, result, left+1, n-left-2);
+    }
+    else
+    {
+      int half = both.length / 2;
+      result = kids.clone();
+      result[left]   = node(copy(both, 0, half), h-1);
+      result[left+1] = node(copy(both, half, both.length), h-1);
+    }
+    return node(result, h);
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Nodes
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Make a leaf (h=0) or branch from a list of items or kids
+   */
+  private static Object node(Object[] items, int h)
+  {
+    return h == 0 ? items : new Branch(items, h);
+  }
+
+  /**
+   * Get the items of a leaf or kids of a branch
+   */
+  private static Object[] items(Object node, int h)
+  {
+    return h == 0 ? (Object[])node : ((Branch)node).kids;
+  }
+
+  private static int size(Object node, int h)
+  {
+    if (h == 0) return ((Object[])node).length;
+    int[] sizes = ((Branch)node).sizes;
+    return sizes[sizes.length-1];
+  }
+
+  private static Object[] copy(Object[] a, int from, int to)
+  {
+    Object[] r = new Object[to-from];
+    System.arraycopy(a, from, r, 0, r.length);
+    return r;
+  }
+
+  private static Object[] copyWithout(Object[] a, int k)
+  {
+    Object[] r = new Object[a.length-1];
+    System.arraycopy(a, 0, r, 0, k);
+    System.arraycopy(a, k+1, r, k, a.length-k-1);
+    return r;
+  }
+
+  /**
+   * Branch stores its kids and the cumulative item count through
+   * each kid so that an index can be routed without a radix.
+   */
+  static final class Branch
+  {
+    Branch(Object[] kids, int h)
+    {
+      int[] sizes = new int[kids.length];
+      int sum = 0;
+      for (int i=0; i<kids.length; ++i)
+        sizes[i] = sum += size(kids[i], h-1);
+      this.kids = kids;
+      this.sizes = sizes;
+    }
+
+    Branch(Object[] kids, int[] sizes)
+    {
+      this.kids = kids;
+      this.sizes = sizes;
+    }
+
+    /** Index of kid containing item i */
+    int slot(int i)
+    {
+      int k = 0;
+      while (sizes[k] <= i) ++k;
+      return k;
+    }
+
+    /** Index of kid to insert item i into; may append to last kid */
+    int insertSlot(int i)
+    {
+      int k = 0, last = sizes.length-1;
+      while (k < last && sizes[k] < i) ++k;
+      return k;
+    }
+
+    final Object[] kids;  // leaves (Object[]) or Branches
+    final int[] sizes;    // cumulative item count through kids[i]
+  }
+
+  /**
+   * Leaf is one leaf's items and the index of its first item.  It is
+   * immutable so a List may cache its last leaf without locking.
+   */
+  static final class Leaf
+  {
+    Leaf(int start, Object[] items)
+    {
+      this.start = start;
+      this.items = items;
+    }
+
+    boolean has(int i) { return i >= start && i - start < items.length; }
+
+    Object get(int i) { return items[i - start]; }
+
+    final int start;        // index of items[0] in the vector
+    final Object[] items;   // leaf items
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  static final int M = 32;        // max items or kids per node
+  static final int MIN = M / 2;   // min items or kids per non-root node
+
+  private final Object root;      // Object[] leaf if height is 0, else Branch
+  private final int size;         // total number of items
+  private final int height;       // number of branch levels above the leaves
+
+}
@@ -199,6 +199,11 @@ public final class Range
     return acc;
   }
 
+  public final Seq seq()
+  {
+    return Seq.makeRange(this);
+  }
+
   public final List<Long> toList()
   {
     long start = this.start;
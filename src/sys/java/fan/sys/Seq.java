@@ -0,0 +1,502 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+package fan.sys;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+/**
+ * Seq is a lazy sequence of items.  Intermediate operations such as
+ * filter and map just wrap their upstream Source; nothing is read until
+ * a terminal operation opens a chain of Cursors and pulls items through
+ * it one at a time, so no intermediate lists are allocated and short
+ * circuiting operations stop reading the source as soon as they can.
+ */
+public final class Seq
+  extends FanObj
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Sources
+//////////////////////////////////////////////////////////////////////////
+
+  static Seq makeList(final List list)
+  {
+    return new Seq(new Source()
+    {
+      Cursor open()
+      {
+        return new Cursor()
+        {
+          boolean next()
+          {
+            if (i >= list.sz()) return false;
+            item = list.get(i++);
+            return true;
+          }
+          int i;
+        };
+      }
+    });
+  }
+
+  static Seq makeRange(Range r)
+  {
+    // same iteration order as Range.each
+    final long start = r.start();
+    final long step = r.start() < r.end() ? 1 : -1;
+    final long end = r.exclusive() ? r.end() - step : r.end();
+    return new Seq(new Source()
+    {
+      Cursor open()
+      {
+        return new Cursor()
+        {
+          boolean next()
+          {
+            if (step > 0 ? i > end : i < end) return false;
+            item = Long.valueOf(i);
+            i += step;
+            return true;
+          }
+          long i = start;
+        };
+      }
+    });
+  }
+
+  static Seq makeMap(final Map map, final boolean keys)
+  {
+    return new Seq(new Source()
+    {
+      Cursor open()
+      {
+        final Iterator it = map.pairsIterator();
+        return new Cursor()
+        {
+          boolean next()
+          {
+            if (!it.hasNext()) return false;
+            Entry e = (Entry)it.next();
+            item = keys ? e.getKey() : e.getValue();
+            return true;
+          }
+        };
+      }
+    });
+  }
+
+  static Seq makeLines(final InStream in)
+  {
+    return new Seq(new Source()
+    {
+      Cursor open() { return new LineCursor(in); }
+    });
+  }
+
+  static Seq makeLines(final File file)
+  {
+    return new Seq(new Source()
+    {
+      Cursor open() { return new LineCursor(file.in(FanInt.Chunk)); }
+    });
+  }
+
+  private Seq(Source src)
+  {
+    this.src = src;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Identity
+//////////////////////////////////////////////////////////////////////////
+
+  public Type typeof() { return Sys.SeqType; }
+
+//////////////////////////////////////////////////////////////////////////
+// Intermediate
+//////////////////////////////////////////////////////////////////////////
+
+  public Seq filter(final Func f)
+  {
+    return new Seq(new Source()
+    {
+      Cursor open()
+      {
+        return new Stage(src.open())
+        {
+          boolean next()
+          {
+            while (up.next())
+              if (f.callBool(up.item)) { item = up.item; return true; }
+            return false;
+          }
+        };
+      }
+    });
+  }
+
+  public Seq exclude(final Func f)
+  {
+    return new Seq(new Source()
+    {
+      Cursor open()
+      {
+        return new Stage(src.open())
+        {
+          boolean next()
+          {
+            while (up.next())
+              if (!f.callBool(up.item)) { item = up.item; return true; }
+            return false;
+          }
+        };
+      }
+    });
+  }
+
+  public Seq map(final Func f)
+  {
+    return new Seq(new Source()
+    {
+      Cursor open()
+      {
+        return new Stage(src.open())
+        {
+          boolean next()
+          {
+            if (!up.next()) return false;
+            item = f.call(up.item);
+            return true;
+          }
+        };
+      }
+    });
+  }
+
+  public Seq flatMap(final Func f)
+  {
+    return new Seq(new Source()
+    {
+      Cursor open()
+      {
+        return new Stage(src.open())
+        {
+          boolean next()
+          {
+            while (true)
+            {
+              if (inner != null)
+              {
+                if (inner.next()) { item = inner.item; return true; }
+                inner.close();
+                inner = null;
+              }
+              if (!up.next()) return false;
+              Object r = f.call(up.item);
+              if (r instanceof List) inner = makeList((List)r).src.open();
+              else if (r instanceof Seq) inner = ((Seq)r).src.open();
+              else if (r != null) throw ArgErr.make("flatMap func must return List or Seq, not " + typeof(r));
+            }
+          }
+
+          void close()
+          {
+            try { if (inner != null) inner.close(); }
+            finally { super.close(); }
+          }
+
+          Cursor inner;
+        };
+      }
+    });
+  }
+
+  public Seq limit(final long n)
+  {
+    if (n < 0) throw ArgErr.make("limit < 0: " + n);
+    return new Seq(new Source()
+    {
+      Cursor open()
+      {
+        return new Stage(src.open())
+        {
+          boolean next()
+          {
+            if (count >= n || !up.next()) return false;
+            ++count;
+            item = up.item;
+            return true;
+          }
+          long count;
+        };
+      }
+    });
+  }
+
+  public Seq skip(final long n)
+  {
+    if (n < 0) throw ArgErr.make("skip < 0: " + n);
+    return new Seq(new Source()
+    {
+      Cursor open()
+      {
+        return new Stage(src.open())
+        {
+          boolean next()
+          {
+            for (; skipped < n; ++skipped)
+              if (!up.next()) return false;
+            if (!up.next()) return false;
+            item = up.item;
+            return true;
+          }
+          long skipped;
+        };
+      }
+    });
+  }
+
+  public Seq takeWhile(final Func f)
+  {
+    return new Seq(new Source()
+    {
+      Cursor open()
+      {
+        return new Stage(src.open())
+        {
+          boolean next()
+          {
+            if (done || !up.next() || !f.callBool(up.item)) { done = true; return false; }
+            item = up.item;
+            return true;
+          }
+          boolean done;
+        };
+      }
+    });
+  }
+
+  public Seq distinct()
+  {
+    return new Seq(new Source()
+    {
+      Cursor open()
+      {
+        return new Stage(src.open())
+        {
+          boolean next()
+          {
+            while (up.next())
+              if (seen.add(up.item)) { item = up.item; return true; }
+            return false;
+          }
+          HashSet seen = new HashSet();
+        };
+      }
+    });
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Terminal
+//////////////////////////////////////////////////////////////////////////
+
+  public void each(Func f)
+  {
+    Cursor c = src.open();
+    try
+    {
+      while (c.next()) f.call(c.item);
+    }
+    finally { c.close(); }
+  }
+
+  public Object eachWhile(Func f)
+  {
+    Cursor c = src.open();
+    try
+    {
+      while (c.next())
+      {
+        Object r = f.call(c.item);
+        if (r != null) return r;
+      }
+      return null;
+    }
+    finally { c.close(); }
+  }
+
+  public Object first()
+  {
+    Cursor c = src.open();
+    try
+    {
+      return c.next() ? c.item : null;
+    }
+    finally { c.close(); }
+  }
+
+  public Object find(Func f)
+  {
+    Cursor c = src.open();
+    try
+    {
+      while (c.next())
+        if (f.callBool(c.item)) return c.item;
+      return null;
+    }
+    finally { c.close(); }
+  }
+
+  public boolean any(Func f)
+  {
+    Cursor c = src.open();
+    try
+    {
+      while (c.next())
+        if (f.callBool(c.item)) return true;
+      return false;
+    }
+    finally { c.close(); }
+  }
+
+  public boolean all(Func f)
+  {
+    Cursor c = src.open();
+    try
+    {
+      while (c.next())
+        if (!f.callBool(c.item)) return false;
+      return true;
+    }
+    finally { c.close(); }
+  }
+
+  public long count()
+  {
+    Cursor c = src.open();
+    try
+    {
+      long n = 0;
+      while (c.next()) ++n;
+      return n;
+    }
+    finally { c.close(); }
+  }
+
+  public Object reduce(Object reduction, Func f)
+  {
+    Cursor c = src.open();
+    try
+    {
+      while (c.next()) reduction = f.call(reduction, c.item);
+      return reduction;
+    }
+    finally { c.close(); }
+  }
+
+  public List toList() { return toList(Sys.ObjType.toNullable()); }
+  public List toList(Type of)
+  {
+    List acc = new List(of);
+    Cursor c = src.open();
+    try
+    {
+      while (c.next()) acc.add(c.item);
+      return acc;
+    }
+    finally { c.close(); }
+  }
+
+  public String join() { return join("", null); }
+  public String join(String sep) { return join(sep, null); }
+  public String join(String sep, Func f)
+  {
+    StringBuilder s = new StringBuilder();
+    Cursor c = src.open();
+    try
+    {
+      for (boolean first = true; c.next(); first = false)
+      {
+        if (!first) s.append(sep);
+        Object v = c.item;
+        if (f != null) s.append((String)f.call(v));
+        else s.append(v == null ? "null" : toStr(v));
+      }
+      return s.toString();
+    }
+    finally { c.close(); }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Cursor
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Source opens a new Cursor for each terminal operation
+   */
+  abstract static class Source
+  {
+    abstract Cursor open();
+  }
+
+  /**
+   * Cursor pulls one item at a time into item
+   */
+  abstract static class Cursor
+  {
+    /** Advance to the next item and return false if there are no more */
+    abstract boolean next();
+
+    /** Release any resources such as an open stream */
+    void close() {}
+
+    Object item;  // current item
+  }
+
+  /**
+   * Stage is a Cursor that pulls from an upstream Cursor
+   */
+  abstract static class Stage extends Cursor
+  {
+    Stage(Cursor up) { this.up = up; }
+
+    void close() { up.close(); }
+
+    final Cursor up;
+  }
+
+  /**
+   * LineCursor reads lines from an InStream like eachLine and
+   * closes it once the lines are exhausted or the Seq is done.
+   */
+  static final class LineCursor extends Cursor
+  {
+    LineCursor(InStream in) { this.in = in; }
+
+    boolean next()
+    {
+      String line = in.readLine();
+      if (line == null) return false;
+      item = line;
+      return true;
+    }
+
+    void close()
+    {
+      try { in.close(); } catch (Exception e) { e.printStackTrace(); }
+    }
+
+    private final InStream in;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private final Source src;
+
+}
@@ -119,6 +119,7 @@ public final class Sys
   public static final Type ConstBufType     = initType("ConstBuf");
   public static final Type FileBufType      = initType("FileBuf");
   public static final Type NioBufType       = initType("NioBuf");
+  public static final Type MmapBufType      = initType("MmapBuf");
   public static final Type UriType          = initType("Uri");
   public static final Type ZipType          = initType("Zip");
   public static final Type ClassLoaderFileType = initType("ClassLoaderFile");
@@ -135,6 +136,7 @@ public final class Sys
   public static final Type ProcessType      = initType("Process");
   public static final Type RegexType        = initType("Regex");
   public static final Type RegexMatcherType = initType("RegexMatcher");
+  public static final Type SeqType          = initType("Seq");
   public static final Type ServiceType      = initType("Service");
   public static final Type VersionType      = initType("Version");
   public static final Type UnitType         = initType("Unit");
@@ -8,6 +8,7 @@
 package fan.sys;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 
 /**
  * SysInStream implements InStream using a java.io.InputStream
@@ -25,7 +26,7 @@ public class SysInStream
     if (bufSize == null || bufSize.longValue() == 0)
       return new SysInStream(in);
     else
-      return new SysInStream(new java.io.BufferedInputStream(in, bufSize.intValue()));
+      return new SysInStream(new Buffered(in, bufSize.intValue()));
   }
 
   public SysInStream(InputStream in)
@@ -87,6 +88,10 @@ public class SysInStream
   {
     try
     {
+      // if pushing back the byte we just read, then just rewind
+      if (in instanceof Buffered && ((Buffered)in).rewind(n))
+        return this;
+
       // don't take the hit until we know we need to wrap
       // the raw input stream with a pushback stream
       if (!(in instanceof PushbackInputStream))
@@ -100,6 +105,19 @@ public class SysInStream
     }
   }
 
+  int readAscii(StringBuilder sb, int max, boolean[] stops)
+  {
+    if (!(in instanceof Buffered)) return 0;
+    try
+    {
+      return ((Buffered)in).readAscii(sb, max, stops);
+    }
+    catch (IOException e)
+    {
+      throw IOErr.make(e);
+    }
+  }
+
   public long skip(long n)
   {
     try
@@ -119,6 +137,70 @@ public class SysInStream
     }
   }
 
+  public long pipe(OutStream out, Long toPipe, boolean close)
+  {
+    // pipe a file as read only FileBuf regions; wrapping streams such
+    // as a web response pass each region down to the bottom stream
+    // which uses FileChannel.transferTo if it is backed by a channel.
+    // Regions are bounded unless we are writing straight to such a
+    // stream, so a wrapper that buffers what it is handed never holds
+    // more than MAX_REGION bytes
+    long n = -1;
+    FileChannel chan = fileChannel();
+    try
+    {
+      if (chan != null)
+      {
+        long left = chan.size() - chan.position();
+        n = toPipe == null ? left : toPipe.longValue();
+        if (n > left) n = -1;
+      }
+    }
+    catch (IOException e)
+    {
+      throw IOErr.make(e);
+    }
+
+    // otherwise use the normal copy loop which reports an early eof
+    if (n < 0) return super.pipe(out, toPipe, close);
+
+    try
+    {
+      boolean direct = out instanceof SysOutStream && ((SysOutStream)out).channel != null;
+      long max = direct ? n : MAX_REGION;
+      long start = chan.position();
+      long total = 0;
+      while (total < n)
+      {
+        long len = Math.min(n - total, max);
+        out.writeBuf(new FileBuf(chan, len), len);
+        total += len;
+        chan.position(start + total);
+      }
+      return n;
+    }
+    catch (IOException e)
+    {
+      throw IOErr.make(e);
+    }
+    finally
+    {
+      if (close) close();
+    }
+  }
+
+  /**
+   * If we are reading a file with nothing buffered
+   * then return its channel, otherwise null.
+   */
+  private FileChannel fileChannel()
+  {
+    InputStream raw = in;
+    if (raw instanceof Buffered) raw = ((Buffered)raw).unbuffered();
+    if (raw instanceof FileInputStream) return ((FileInputStream)raw).getChannel();
+    return null;
+  }
+
   public boolean close()
   {
     try
@@ -132,6 +214,48 @@ public class SysInStream
     }
   }
 
+//////////////////////////////////////////////////////////////////////////
+// Buffered
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Buffered exposes BufferedInputStream's buffer so that we
+   * can scan runs of ASCII chars without a call per byte.
+   */
+  static final class Buffered extends BufferedInputStream
+  {
+    Buffered(InputStream in, int size) { super(in, size); }
+
+    synchronized int readAscii(StringBuilder sb, int max, boolean[] stops)
+      throws IOException
+    {
+      // if our buffer is empty, then read a byte to fill it
+      // and rewind since the byte remains in our buffer
+      if (pos >= count)
+      {
+        if (read() < 0) return 0;
+        pos--;
+      }
+
+      int start = pos;
+      int end = count - start > max ? start + max : count;
+      pos = appendAscii(buf, start, end, sb, stops);
+      return pos - start;
+    }
+
+    synchronized InputStream unbuffered()
+    {
+      return pos >= count ? in : null;
+    }
+
+    synchronized boolean rewind(int b)
+    {
+      if (pos <= 0 || markpos >= 0 || buf[pos-1] != (byte)b) return false;
+      pos--;
+      return true;
+    }
+  }
+
 //////////////////////////////////////////////////////////////////////////
 // Java Conversion
 //////////////////////////////////////////////////////////////////////////
@@ -177,6 +301,8 @@ public class SysInStream
 // Fields
 //////////////////////////////////////////////////////////////////////////
 
+  static final long MAX_REGION = 1 << 16;  // max bytes piped per region to a wrapper
+
   InputStream in;
 
 }
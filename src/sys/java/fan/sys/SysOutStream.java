@@ -8,6 +8,7 @@
 package fan.sys;
 
 import java.io.*;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * SysOutStream implements OutStream using a java.io.OutputStream
@@ -33,6 +34,18 @@ public class SysOutStream
       return new java.io.BufferedOutputStream(out, bufSize.intValue());
   }
 
+  /**
+   * Make with the channel which out writes to, such as a file's
+   * channel.  File regions written with writeBuf are transferred
+   * directly to the channel.
+   */
+  public static SysOutStream make(java.io.OutputStream out, Long bufSize, WritableByteChannel channel)
+  {
+    SysOutStream s = new SysOutStream(toBuffered(out, bufSize));
+    s.channel = channel;
+    return s;
+  }
+
   public SysOutStream(OutputStream out)
   {
     this.out = out;
@@ -67,7 +80,16 @@ public class SysOutStream
   {
     try
     {
-      buf.pipeTo(out, n);
+      if (channel != null && buf instanceof FileBuf)
+      {
+        // flush what we have buffered, then let the OS copy the file
+        out.flush();
+        ((FileBuf)buf).transferTo(channel, n);
+      }
+      else
+      {
+        buf.pipeTo(out, n);
+      }
       return this;
     }
     catch (IOException e)
@@ -83,6 +105,32 @@ public class SysOutStream
     return this;
   }
 
+  public OutStream writeChars(String s, int off, int len)
+  {
+    // bulk encode into a chunk we write in one call; the chunk is
+    // local since streams like Env.out are shared between threads
+    Charset.Encoder enc = charsetEncoder;
+    int max = enc.maxBytesPerChar();
+    if (max == 0) return super.writeChars(s, off, len);
+    try
+    {
+      byte[] bytes = new byte[Math.min(len, charsChunk) * max + 1];
+      int end = off + len;
+      while (off < end)
+      {
+        int chunkEnd = chunkEnd(s, off, end, charsChunk);
+        int n = enc.encodeChars(s, off, chunkEnd, bytes, 0);
+        out.write(bytes, 0, n);
+        off = chunkEnd;
+      }
+      return this;
+    }
+    catch (IOException e)
+    {
+      throw IOErr.make(e);
+    }
+  }
+
   public OutStream flush()
   {
     try
@@ -146,6 +194,7 @@ public class SysOutStream
 //////////////////////////////////////////////////////////////////////////
 
   OutputStream out;
+  WritableByteChannel channel;   // channel out writes to or null
 
 }
 
@@ -0,0 +1,168 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+package fan.sys;
+
+/**
+ * TrapSite is the state of one dynamic call site.  The emitter compiles
+ * each "->" call to a call of TrapSite.trap with a TrapSite of its own
+ * that it lazily allocates into a private static field.  The site is a
+ * polymorphic inline cache: it keeps an entry for each of the first few
+ * receiver classes seen, which resolves the slot once so repeat calls
+ * skip the lookup by name, and binds the method's handle so they also
+ * skip reflection.  Once a site sees more than maxEntries receivers it
+ * is megamorphic and all further misses go through FanObj.trap.
+ */
+public final class TrapSite
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Trap
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Same semantics as FanObj.trap(self, name, args)
+   */
+  public static Object trap(Object self, String name, List args, TrapSite site)
+  {
+    if (self == null) return null;
+
+    Entry e = site.lookup(self.getClass(), name, args == null ? 0 : args.sz());
+    if (e == null)
+    {
+      if (site.megamorphic) return FanObj.trap(self, name, args);
+      e = site.add(self, name, args == null ? 0 : args.sz());
+    }
+
+    if (e.slot == null) return ((FanObj)self).trap(name, args);
+    if (e.invoker == null) return FanObj.trapSlot(self, e.slot, name, args);
+    return e.call(self, args);
+  }
+
+  /**
+   * Find the entry for the given receiver class, name, and number
+   * of args or return null on a cache miss.
+   */
+  private Entry lookup(Class cls, String name, int argc)
+  {
+    // entries is copy on write, and a slot may read as null if
+    // the array was published by a racing thread
+    Entry[] entries = this.entries;
+    for (int i=0; i<entries.length; ++i)
+    {
+      Entry e = entries[i];
+      if (e == null) return null;
+      if (e.cls == cls && e.argc == argc && (e.name == name || e.name.equals(name))) return e;
+    }
+    return null;
+  }
+
+  /**
+   * Resolve a new entry and add it to the cache if there is room.
+   */
+  private Entry add(Object self, String name, int argc)
+  {
+    Entry e = resolve(self, name, argc);
+
+    Entry[] old = this.entries;
+    if (old.length >= maxEntries)
+    {
+      megamorphic = true;
+    }
+    else
+    {
+      Entry[] entries = new Entry[old.length+1];
+      System.arraycopy(old, 0, entries, 0, old.length);
+      entries[old.length] = e;
+      this.entries = entries;
+    }
+    return e;
+  }
+
+  private static Entry resolve(Object self, String name, int argc)
+  {
+    Class cls = self.getClass();
+
+    // if the class overrides trap we have to route to it on every call
+    if (self instanceof FanObj && overridesTrap(cls)) return new Entry(cls, name, argc, null, null);
+
+    // bind a handle for methods, fields use their getter and setter
+    Slot slot = FanObj.typeof(self).slot(name, true);
+    Method.Invoker inv = null;
+    if (slot instanceof Method) inv = ((Method)slot).trapInvoker(argc);
+    return new Entry(cls, name, argc, slot, inv);
+  }
+
+  private static boolean overridesTrap(Class cls)
+  {
+    try
+    {
+      return cls.getMethod("trap", String.class, List.class).getDeclaringClass() != FanObj.class;
+    }
+    catch (Exception e)
+    {
+      return true;
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Entry
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Entry is an immutable cache entry so that it is safe to
+   * share it with other threads calling thru the site.
+   */
+  static final class Entry
+  {
+    Entry(Class cls, String name, int argc, Slot slot, Method.Invoker invoker)
+    {
+      this.cls     = cls;
+      this.name    = name;
+      this.argc    = argc;
+      this.slot    = slot;
+      this.invoker = invoker;
+      this.selfArg = invoker != null && ((Method)slot).trapSelfArg();
+      this.arity   = invoker == null ? 0 : invoker.arity();
+    }
+
+    /**
+     * Call the bound method handle with the target and args
+     */
+    Object call(Object self, List args)
+    {
+      Method m = (Method)slot;
+      Object instance = selfArg ? null : self;
+      return invoker.call(m, instance,
+        arg(self, args, 0), arg(self, args, 1), arg(self, args, 2), arg(self, args, 3),
+        arg(self, args, 4), arg(self, args, 5), arg(self, args, 6), arg(self, args, 7));
+    }
+
+    private Object arg(Object self, List args, int i)
+    {
+      if (i >= arity) return null;
+      if (!selfArg) return args.get(i);
+      return i == 0 ? self : args.get(i-1);
+    }
+
+    final Class cls;                // receiver class
+    final String name;              // slot name
+    final int argc;                 // number of args passed
+    final Slot slot;                // resolved slot or null if class overrides trap
+    final Method.Invoker invoker;   // bound handle or null to use callOn
+    final boolean selfArg;          // pass target as first arg of a Java static
+    final int arity;                // number of args the invoker takes
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  static final int maxEntries = 4;         // receivers cached before megamorphic
+  static final Entry[] noEntries = new Entry[0];
+
+  private Entry[] entries = noEntries;     // copy on write cache
+  private boolean megamorphic;             // too many receivers to cache
+
+}
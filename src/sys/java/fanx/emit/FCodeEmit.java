@@ -100,7 +100,7 @@ public class FCodeEmit
         case CallNew:             pod.methodRef(u2()).emitCallNew(code); break;
         case CallCtor:            pod.methodRef(u2()).emitCallCtor(code); break;
         case CallStatic:          pod.methodRef(u2()).emitCallStatic(code); break;
-        case CallVirtual:         pod.methodRef(u2()).emitCallVirtual(code); break;
+        case CallVirtual:         callVirtual(); break;
         case CallNonVirtual:      pod.methodRef(u2()).emitCallNonVirtual(code); break;
         case CallMixinStatic:     pod.methodRef(u2()).emitCallMixinStatic(code); break;
         case CallMixinVirtual:    pod.methodRef(u2()).emitCallMixinVirtual(code); break;
@@ -423,6 +423,44 @@ public class FCodeEmit
     code.mark(nonNull);
   }
 
+//////////////////////////////////////////////////////////////////////////
+// Call Virtual
+//////////////////////////////////////////////////////////////////////////
+
+  private void callVirtual()
+  {
+    FMethodRef ref = pod.methodRef(u2());
+    if (ref.parent.isObj() && ref.name.equals("trap") && ref.params.length == 2)
+      trapSite();
+    else
+      ref.emitCallVirtual(code);
+  }
+
+  /**
+   * Dynamic calls using the -> operator are compiled to Obj.trap.  We
+   * route them thru a TrapSite which caches the slot resolved for the
+   * last receiver class.  Each call site gets its own TrapSite which is
+   * lazily allocated and stored in a private static field called
+   * trap$site$count generated by FTypeEmit (like type literals).
+   */
+  private void trapSite()
+  {
+    String fieldName = "trap$site$" + parent.trapSites++;
+    int fieldRef = emit.field(parent.className + "." + fieldName + ":Lfan/sys/TrapSite;");
+
+    code.op2(GETSTATIC, fieldRef);
+    code.op(DUP);
+    int nonNull = code.branch(IFNONNULL);
+    code.op(POP);
+    code.op2(NEW, emit.cls("fan/sys/TrapSite"));
+    code.op(DUP);
+    code.op2(INVOKESPECIAL, emit.method("fan/sys/TrapSite.<init>()V"));
+    code.op(DUP);
+    code.op2(PUTSTATIC, fieldRef);
+    code.mark(nonNull);
+    code.op2(INVOKESTATIC, emit.method("fan/sys/TrapSite.trap(Ljava/lang/Object;Ljava/lang/String;Lfan/sys/List;Lfan/sys/TrapSite;)Ljava/lang/Object;"));
+  }
+
 //////////////////////////////////////////////////////////////////////////
 // Load Var
 //////////////////////////////////////////////////////////////////////////
@@ -198,7 +198,10 @@ public abstract class FTypeEmit
 
     // if closure doCall, emit its params names for reflection
     if (funcType != null && name.equals("doCall"))
+    {
       emitFuncParamNames(m);
+      emitFuncUnboxedCall(m);
+    }
   }
 
   protected void emitInstanceInit(FMethod m)
@@ -282,13 +285,19 @@ public abstract class FTypeEmit
     // if during the emitting of all the methods we ran across a non-sys
     // LoadType opcode, then we need to generate a static field called
     // type${pod}${name} we can use to cache the type once it is looked up
-    if (typeLiteralFields == null) return;
-    Iterator it = typeLiteralFields.values().iterator();
-    while (it.hasNext())
+    if (typeLiteralFields != null)
     {
-      String fieldName = (String)it.next();
-      emitField(fieldName, "Lfan/sys/Type;", EmitConst.PRIVATE|EmitConst.STATIC);
+      Iterator it = typeLiteralFields.values().iterator();
+      while (it.hasNext())
+      {
+        String fieldName = (String)it.next();
+        emitField(fieldName, "Lfan/sys/Type;", EmitConst.PRIVATE|EmitConst.STATIC);
+      }
     }
+
+    // generate a trap$site$count field for each dynamic call site
+    for (int i=0; i<trapSites; ++i)
+      emitField("trap$site$" + i, "Lfan/sys/TrapSite;", EmitConst.PRIVATE|EmitConst.STATIC);
   }
 
   void emitMethodParamDef(FMethod m, FMethodVar p)
@@ -350,6 +359,41 @@ public abstract class FTypeEmit
     code.op(ARETURN);
   }
 
+  /**
+   * If the closure takes one non-nullable Int or Float then override
+   * Func$Indirect1.callLong or callDouble to route to doCall unboxed.
+   */
+  void emitFuncUnboxedCall(FMethod m)
+  {
+    if (m.paramCount != 1) return;
+    FTypeRef p = pod.typeRef(m.vars[0].type);
+    FTypeRef ret = pod.typeRef(m.inheritedRet);
+    String name;
+    int load;
+    if (p.isPrimitiveLong()) { name = "callLong"; load = LLOAD; }
+    else if (p.isPrimitiveDouble()) { name = "callDouble"; load = DLOAD; }
+    else return;
+
+    // box the result back to an Object
+    String sig = ret.jsig();
+    int box = 0;
+    if (ret.isPrimitiveBool())        box = method("java/lang/Boolean.valueOf(Z)Ljava/lang/Boolean;");
+    else if (ret.isPrimitiveLong())   box = method("java/lang/Long.valueOf(J)Ljava/lang/Long;");
+    else if (ret.isPrimitiveDouble()) box = method("java/lang/Double.valueOf(D)Ljava/lang/Double;");
+    else if (!ret.isRef() && !sig.equals("V")) return;
+
+    MethodEmit me = emitMethod(name, "(" + p.jsig() + ")Ljava/lang/Object;", EmitConst.PUBLIC);
+    CodeEmit code = me.emitCode();
+    code.maxLocals = 3;
+    code.maxStack  = 3;
+    code.op(ALOAD_0);
+    code.op1(load, 1);
+    code.op2(INVOKEVIRTUAL, method(className + ".doCall(" + p.jsig() + ")" + sig));
+    if (box != 0) code.op2(INVOKESTATIC, box);
+    else if (sig.equals("V")) code.op(ACONST_NULL);
+    code.op(ARETURN);
+  }
+
 //////////////////////////////////////////////////////////////////////////
 // Mixin Routers
 //////////////////////////////////////////////////////////////////////////
@@ -485,6 +529,7 @@ public abstract class FTypeEmit
   boolean hasStaticInit;         // true if we already emitted <clinit>
   Type funcType;                 // if type is a function
   HashMap typeLiteralFields;     // signature Strings we need to turn into cached fields
+  int trapSites;                 // number of trap$site$count fields we need
   boolean isNative = false;      // do we have any native methods requiring a peer
   int lineNum;                   // line number of current type (or zero)
 
@@ -375,6 +375,7 @@ fan.sys.File.prototype.rename = function(newName)
 //////////////////////////////////////////////////////////////////////////
 
 fan.sys.File.prototype.open = function(mode) { this._throwNotSupported("open"); }
+fan.sys.File.prototype.openBuffered = function(mode, bufSize) { return this.open(mode); }
 fan.sys.File.prototype.mmap = function(mode, pos, size) { this._throwNotSupported("mmap"); }
 fan.sys.File.prototype.$in   = function(bufSize) { this._throwNotSupported("in"); }
 fan.sys.File.prototype.out  = function(append, bufSize) { this._throwNotSupported("out"); }
@@ -394,6 +395,12 @@ fan.sys.File.prototype.eachLine = function(f)
   this.$in(fan.sys.Int.Chunk).eachLine(f);
 }
 
+fan.sys.File.prototype.seqLines = function()
+{
+  var self = this;
+  return fan.sys.Seq.$lines(function() { return self.$in(fan.sys.Int.Chunk); });
+}
+
 fan.sys.File.prototype.readAllStr = function(normalizeNewlines)
 {
   if (normalizeNewlines === undefined) normalizeNewlines = true;
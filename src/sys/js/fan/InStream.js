@@ -446,6 +446,12 @@ fan.sys.InStream.prototype.eachLine = function(f)
   }
 }
 
+fan.sys.InStream.prototype.seqLines = function()
+{
+  var self = this;
+  return fan.sys.Seq.$lines(function() { return self; });
+}
+
 fan.sys.InStream.prototype.readAllStr = function(normalizeNewlines)
 {
   if (normalizeNewlines === undefined) normalizeNewlines = true;
@@ -1010,6 +1010,11 @@ fan.sys.List.prototype.shuffle = function()
 // Conversion
 //////////////////////////////////////////////////////////////////////////
 
+fan.sys.List.prototype.seq = function()
+{
+  return fan.sys.Seq.$list(this);
+}
+
 fan.sys.List.prototype.join = function(sep, f)
 {
   if (sep === undefined) sep = "";
@@ -1070,6 +1075,64 @@ fan.sys.List.prototype.$literalEncode = function(out)
   out.writeList(this);
 }
 
+//////////////////////////////////////////////////////////////////////////
+// Parallel
+//////////////////////////////////////////////////////////////////////////
+
+// JavaScript is single threaded so these run sequentially
+
+fan.sys.List.prototype.parSort = function(f)
+{
+  return this.sort(f);
+}
+
+fan.sys.List.prototype.parMap = function(f)
+{
+  return this.map(f);
+}
+
+fan.sys.List.prototype.parFindAll = function(f)
+{
+  return this.findAll(f);
+}
+
+fan.sys.List.prototype.parReduce = function(init, f)
+{
+  var reduction = init;
+  for (var i=0; i<this.m_size; ++i)
+    reduction = f.call(reduction, this.m_values[i]);
+  return reduction;
+}
+
+//////////////////////////////////////////////////////////////////////////
+// Persistent
+//////////////////////////////////////////////////////////////////////////
+
+// there is no structurally shared list in JavaScript,
+// so each of these copies the list then makes it immutable
+
+fan.sys.List.prototype.withAdd = function(item)
+{
+  return this.dup().add(item).toImmutable();
+}
+
+fan.sys.List.prototype.withInsert = function(index, item)
+{
+  return this.dup().insert(index, item).toImmutable();
+}
+
+fan.sys.List.prototype.withSet = function(index, item)
+{
+  return this.dup().set(index, item).toImmutable();
+}
+
+fan.sys.List.prototype.withRemoveAt = function(index)
+{
+  var dup = this.dup();
+  dup.removeAt(index);
+  return dup.toImmutable();
+}
+
 //////////////////////////////////////////////////////////////////////////
 // Readonly
 //////////////////////////////////////////////////////////////////////////
@@ -107,6 +107,18 @@ fan.sys.Map.prototype.vals = function()
   return fan.sys.List.make(this.m_type.v, array);
 }
 
+fan.sys.Map.prototype.seqKeys = function()
+{
+  var self = this;
+  return fan.sys.Seq.$make(function() { return fan.sys.Seq.$list(self.keys()).m_open(); });
+}
+
+fan.sys.Map.prototype.seqVals = function()
+{
+  var self = this;
+  return fan.sys.Seq.$make(function() { return fan.sys.Seq.$list(self.vals()).m_open(); });
+}
+
 fan.sys.Map.prototype.set = function(key, val)
 {
   this.modify();
@@ -505,6 +517,25 @@ fan.sys.Map.prototype.toCode = function()
   return s;
 }
 
+//////////////////////////////////////////////////////////////////////////
+// Persistent
+//////////////////////////////////////////////////////////////////////////
+
+// there is no structurally shared map in JavaScript,
+// so each of these copies the map then makes it immutable
+
+fan.sys.Map.prototype.withSet = function(key, val)
+{
+  return this.dup().set(key, val).toImmutable();
+}
+
+fan.sys.Map.prototype.withRemove = function(key)
+{
+  var dup = this.dup();
+  dup.remove(key);
+  return dup.toImmutable();
+}
+
 //////////////////////////////////////////////////////////////////////////
 // Readonly
 //////////////////////////////////////////////////////////////////////////
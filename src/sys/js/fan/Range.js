@@ -183,6 +183,24 @@ fan.sys.Range.prototype.map = function(func)
   return acc;
 }
 
+fan.sys.Range.prototype.seq = function()
+{
+  var start = this.m_start;
+  var step = start < this.m_end ? 1 : -1;
+  var end = this.m_exclusive ? this.m_end - step : this.m_end;
+  return fan.sys.Seq.$make(function()
+  {
+    var i = start;
+    return fan.sys.Seq.$cursor(function()
+    {
+      if (step > 0 ? i > end : i < end) return false;
+      this.item = i;
+      i += step;
+      return true;
+    });
+  });
+}
+
 fan.sys.Range.prototype.toList = function()
 {
   var start = this.m_start;
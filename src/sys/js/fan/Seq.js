@@ -0,0 +1,373 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+
+/**
+ * Seq is a lazy sequence of items.  Each Seq wraps an open function
+ * which returns a new cursor for every terminal operation.  A cursor
+ * has next() to advance, item for the current item, and close() to
+ * release the source.
+ */
+fan.sys.Seq = fan.sys.Obj.$extend(fan.sys.Obj);
+
+//////////////////////////////////////////////////////////////////////////
+// Constructor
+//////////////////////////////////////////////////////////////////////////
+
+fan.sys.Seq.prototype.$ctor = function(open)
+{
+  this.m_open = open;
+}
+
+fan.sys.Seq.$make = function(open) { return new fan.sys.Seq(open); }
+
+fan.sys.Seq.$cursor = function(next, close)
+{
+  var c = { item: null, next: next, close: close };
+  if (c.close === undefined) c.close = function() {};
+  return c;
+}
+
+fan.sys.Seq.$stage = function(up, next)
+{
+  var c = fan.sys.Seq.$cursor(next, function() { up.close(); });
+  c.up = up;
+  return c;
+}
+
+fan.sys.Seq.$list = function(list)
+{
+  return fan.sys.Seq.$make(function()
+  {
+    var i = 0;
+    return fan.sys.Seq.$cursor(function()
+    {
+      if (i >= list.size()) return false;
+      this.item = list.get(i++);
+      return true;
+    });
+  });
+}
+
+fan.sys.Seq.$lines = function(open)
+{
+  return fan.sys.Seq.$make(function()
+  {
+    var ins = open();
+    return fan.sys.Seq.$cursor(
+      function()
+      {
+        var line = ins.readLine();
+        if (line == null) return false;
+        this.item = line;
+        return true;
+      },
+      function()
+      {
+        try { ins.close(); } catch (err) { fan.sys.Err.make(err).trace(); }
+      });
+  });
+}
+
+//////////////////////////////////////////////////////////////////////////
+// Identity
+//////////////////////////////////////////////////////////////////////////
+
+fan.sys.Seq.prototype.$typeof = function() { return fan.sys.Seq.$type; }
+
+//////////////////////////////////////////////////////////////////////////
+// Intermediate
+//////////////////////////////////////////////////////////////////////////
+
+fan.sys.Seq.prototype.filter = function(f)
+{
+  var src = this;
+  return fan.sys.Seq.$make(function()
+  {
+    return fan.sys.Seq.$stage(src.m_open(), function()
+    {
+      while (this.up.next())
+        if (f.call(this.up.item) == true) { this.item = this.up.item; return true; }
+      return false;
+    });
+  });
+}
+
+fan.sys.Seq.prototype.exclude = function(f)
+{
+  var src = this;
+  return fan.sys.Seq.$make(function()
+  {
+    return fan.sys.Seq.$stage(src.m_open(), function()
+    {
+      while (this.up.next())
+        if (f.call(this.up.item) != true) { this.item = this.up.item; return true; }
+      return false;
+    });
+  });
+}
+
+fan.sys.Seq.prototype.map = function(f)
+{
+  var src = this;
+  return fan.sys.Seq.$make(function()
+  {
+    return fan.sys.Seq.$stage(src.m_open(), function()
+    {
+      if (!this.up.next()) return false;
+      this.item = f.call(this.up.item);
+      return true;
+    });
+  });
+}
+
+fan.sys.Seq.prototype.flatMap = function(f)
+{
+  var src = this;
+  return fan.sys.Seq.$make(function()
+  {
+    var inner = null;
+    var c = fan.sys.Seq.$stage(src.m_open(), function()
+    {
+      while (true)
+      {
+        if (inner != null)
+        {
+          if (inner.next()) { this.item = inner.item; return true; }
+          inner.close();
+          inner = null;
+        }
+        if (!this.up.next()) return false;
+        var r = f.call(this.up.item);
+        if (r instanceof fan.sys.List) inner = fan.sys.Seq.$list(r).m_open();
+        else if (r instanceof fan.sys.Seq) inner = r.m_open();
+        else if (r != null) throw fan.sys.ArgErr.make("flatMap func must return List or Seq, not " + fan.sys.ObjUtil.$typeof(r));
+      }
+    });
+    c.close = function()
+    {
+      try { if (inner != null) inner.close(); }
+      finally { c.up.close(); }
+    }
+    return c;
+  });
+}
+
+fan.sys.Seq.prototype.limit = function(n)
+{
+  if (n < 0) throw fan.sys.ArgErr.make("limit < 0: " + n);
+  var src = this;
+  return fan.sys.Seq.$make(function()
+  {
+    var count = 0;
+    return fan.sys.Seq.$stage(src.m_open(), function()
+    {
+      if (count >= n || !this.up.next()) return false;
+      ++count;
+      this.item = this.up.item;
+      return true;
+    });
+  });
+}
+
+fan.sys.Seq.prototype.skip = function(n)
+{
+  if (n < 0) throw fan.sys.ArgErr.make("skip < 0: " + n);
+  var src = this;
+  return fan.sys.Seq.$make(function()
+  {
+    var skipped = 0;
+    return fan.sys.Seq.$stage(src.m_open(), function()
+    {
+      for (; skipped < n; ++skipped)
+        if (!this.up.next()) return false;
+      if (!this.up.next()) return false;
+      this.item = this.up.item;
+      return true;
+    });
+  });
+}
+
+fan.sys.Seq.prototype.takeWhile = function(f)
+{
+  var src = this;
+  return fan.sys.Seq.$make(function()
+  {
+    var done = false;
+    return fan.sys.Seq.$stage(src.m_open(), function()
+    {
+      if (done || !this.up.next() || f.call(this.up.item) != true) { done = true; return false; }
+      this.item = this.up.item;
+      return true;
+    });
+  });
+}
+
+fan.sys.Seq.prototype.distinct = function()
+{
+  var src = this;
+  return fan.sys.Seq.$make(function()
+  {
+    // bucket the items seen so far by hash
+    var buckets = {};
+    var seenNull = false;
+    return fan.sys.Seq.$stage(src.m_open(), function()
+    {
+      while (this.up.next())
+      {
+        var x = this.up.item;
+        if (x == null)
+        {
+          if (seenNull) continue;
+          seenNull = true;
+        }
+        else
+        {
+          var h = fan.sys.ObjUtil.hash(x);
+          var bucket = buckets[h];
+          if (bucket === undefined) bucket = buckets[h] = [];
+          var dup = false;
+          for (var i=0; i<bucket.length; ++i)
+            if (fan.sys.ObjUtil.equals(x, bucket[i])) { dup = true; break; }
+          if (dup) continue;
+          bucket.push(x);
+        }
+        this.item = x;
+        return true;
+      }
+      return false;
+    });
+  });
+}
+
+//////////////////////////////////////////////////////////////////////////
+// Terminal
+//////////////////////////////////////////////////////////////////////////
+
+fan.sys.Seq.prototype.each = function(f)
+{
+  var c = this.m_open();
+  try
+  {
+    while (c.next()) f.call(c.item);
+  }
+  finally { c.close(); }
+}
+
+fan.sys.Seq.prototype.eachWhile = function(f)
+{
+  var c = this.m_open();
+  try
+  {
+    while (c.next())
+    {
+      var r = f.call(c.item);
+      if (r != null) return r;
+    }
+    return null;
+  }
+  finally { c.close(); }
+}
+
+fan.sys.Seq.prototype.first = function()
+{
+  var c = this.m_open();
+  try
+  {
+    return c.next() ? c.item : null;
+  }
+  finally { c.close(); }
+}
+
+fan.sys.Seq.prototype.find = function(f)
+{
+  var c = this.m_open();
+  try
+  {
+    while (c.next())
+      if (f.call(c.item) == true) return c.item;
+    return null;
+  }
+  finally { c.close(); }
+}
+
+fan.sys.Seq.prototype.any = function(f)
+{
+  var c = this.m_open();
+  try
+  {
+    while (c.next())
+      if (f.call(c.item) == true) return true;
+    return false;
+  }
+  finally { c.close(); }
+}
+
+fan.sys.Seq.prototype.all = function(f)
+{
+  var c = this.m_open();
+  try
+  {
+    while (c.next())
+      if (f.call(c.item) != true) return false;
+    return true;
+  }
+  finally { c.close(); }
+}
+
+fan.sys.Seq.prototype.count = function()
+{
+  var c = this.m_open();
+  try
+  {
+    var n = 0;
+    while (c.next()) ++n;
+    return n;
+  }
+  finally { c.close(); }
+}
+
+fan.sys.Seq.prototype.reduce = function(reduction, f)
+{
+  var c = this.m_open();
+  try
+  {
+    while (c.next()) reduction = f.call(reduction, c.item);
+    return reduction;
+  }
+  finally { c.close(); }
+}
+
+fan.sys.Seq.prototype.toList = function(of)
+{
+  if (of === undefined) of = fan.sys.Obj.$type.toNullable();
+  var acc = fan.sys.List.make(of, []);
+  var c = this.m_open();
+  try
+  {
+    while (c.next()) acc.add(c.item);
+    return acc;
+  }
+  finally { c.close(); }
+}
+
+fan.sys.Seq.prototype.join = function(sep, f)
+{
+  if (sep === undefined) sep = "";
+  if (f === undefined) f = null;
+  var s = "";
+  var c = this.m_open();
+  try
+  {
+    for (var first = true; c.next(); first = false)
+    {
+      if (!first) s += sep;
+      var v = c.item;
+      if (f != null) s += f.call(v);
+      else s += (v == null) ? "null" : fan.sys.ObjUtil.toStr(v);
+    }
+    return s;
+  }
+  finally { c.close(); }
+}